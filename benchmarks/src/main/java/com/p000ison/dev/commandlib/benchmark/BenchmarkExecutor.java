@@ -0,0 +1,52 @@
+package com.p000ison.dev.commandlib.benchmark;
+
+import com.p000ison.dev.commandlib.CallInformation;
+import com.p000ison.dev.commandlib.Command;
+import com.p000ison.dev.commandlib.CommandExecutor;
+import com.p000ison.dev.commandlib.CommandSender;
+
+/**
+ * Represents a BenchmarkExecutor, which ignores all callbacks
+ */
+public class BenchmarkExecutor extends CommandExecutor {
+
+    @Override
+    public void onPreCommand(CallInformation info) {
+    }
+
+    @Override
+    public void onPostCommand(CallInformation info) {
+    }
+
+    @Override
+    public void onDisplayCommandHelp(CommandSender sender, Command command) {
+    }
+
+    @Override
+    public void onCommandNotFound(CommandSender sender) {
+    }
+
+    @Override
+    public void onPermissionFailed(CommandSender sender, Command command) {
+    }
+
+    /**
+     * Creates a command which does nothing
+     *
+     * @param name       The name of the command
+     * @param identifier The identifier of the command
+     * @return The command
+     */
+    public static Command createCommand(String name, String identifier) {
+        return new NoOpCommand().setName(name).setUsage("None").setIdentifiers(identifier);
+    }
+
+    /**
+     * Represents a NoOpCommand
+     */
+    public static class NoOpCommand extends Command {
+        @Override
+        public void execute(CommandSender sender, CallInformation information) {
+        }
+    }
+}
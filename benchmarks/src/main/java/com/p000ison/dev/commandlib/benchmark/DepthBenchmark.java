@@ -0,0 +1,64 @@
+package com.p000ison.dev.commandlib.benchmark;
+
+import com.p000ison.dev.commandlib.CallResult;
+import com.p000ison.dev.commandlib.Command;
+import com.p000ison.dev.commandlib.CommandExecutor;
+import com.p000ison.dev.commandlib.CommandSender;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the dispatch of a sub-command depending on the depth in the command tree
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DepthBenchmark {
+
+    @Param({"1", "4", "16"})
+    private int depth;
+
+    private CommandExecutor executor;
+    private CommandSender sender;
+    private String line;
+
+    @Setup
+    public void setup() {
+        executor = new BenchmarkExecutor();
+        sender = new NoOpCommandSender();
+
+        StringBuilder builder = new StringBuilder("level0");
+        Command parent = executor.register(BenchmarkExecutor.createCommand("Level0", "level0"));
+
+        // every level gets executed, because the parents are called after a successful sub-command
+        for (int i = 1; i < depth; i++) {
+            Command child = BenchmarkExecutor.createCommand("Level" + i, "level" + i);
+            parent.addSubCommand(child);
+            parent = child;
+            builder.append(" level").append(i);
+        }
+
+        executor.compile();
+
+        line = builder.toString();
+    }
+
+    @Benchmark
+    public CallResult dispatch() {
+        return executor.executeAll(sender, line);
+    }
+}
@@ -0,0 +1,65 @@
+package com.p000ison.dev.commandlib.benchmark;
+
+import com.p000ison.dev.commandlib.Argument;
+import com.p000ison.dev.commandlib.CallResult;
+import com.p000ison.dev.commandlib.Command;
+import com.p000ison.dev.commandlib.CommandExecutor;
+import com.p000ison.dev.commandlib.ConsoleCommandSender;
+
+/**
+ * Measures the retained heap of large registries, like one generated command per warp. The heap usage depends on the
+ * JVM and the garbage collector, so this is not a JMH benchmark and not a unit test, it is run manually:
+ * <pre>
+ * java -cp target/benchmarks.jar com.p000ison.dev.commandlib.benchmark.FootprintBenchmark [commands]
+ * </pre>
+ * It exits with 1 if the retained bytes per command exceed {@link #MAX_BYTES_PER_COMMAND}.
+ */
+public final class FootprintBenchmark {
+
+    private static final int COMMANDS = 100000;
+    /**
+     * The retained bytes per registered and compiled command which must not be exceeded
+     */
+    private static final long MAX_BYTES_PER_COMMAND = 896;
+
+    private FootprintBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        int commands = args.length > 0 ? Integer.parseInt(args[0]) : COMMANDS;
+        long before = usedMemory();
+
+        CommandExecutor executor = new BenchmarkExecutor();
+        for (int i = 0; i < commands; i++) {
+            executor.register(createWarp(i));
+        }
+        executor.compile();
+
+        long perCommand = (usedMemory() - before) / commands;
+
+        if (executor.executeAll(new ConsoleCommandSender(), "warp" + (commands - 1)) != CallResult.SUCCESS) {
+            throw new IllegalStateException("The last warp has not been found!");
+        }
+
+        System.out.println("Retained " + perCommand + " bytes per command, the maximum is " + MAX_BYTES_PER_COMMAND);
+        if (perCommand > MAX_BYTES_PER_COMMAND) {
+            System.exit(1);
+        }
+    }
+
+    private static Command createWarp(int i) {
+        // the strings are created at runtime, like the strings of a configuration
+        return new Command().setName("Warp" + i).setUsage(new StringBuilder("Teleports to a warp").toString())
+                .setIdentifiers("warp" + i)
+                .addPermission(new StringBuilder("warps.use").toString())
+                .addArgument(new Argument("player", true));
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,77 @@
+package com.p000ison.dev.commandlib.benchmark;
+
+import com.p000ison.dev.commandlib.CallInformation;
+import com.p000ison.dev.commandlib.CallResult;
+import com.p000ison.dev.commandlib.Command;
+import com.p000ison.dev.commandlib.CommandExecutor;
+import com.p000ison.dev.commandlib.CommandHandler;
+import com.p000ison.dev.commandlib.CommandSender;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares a command declared by a {@link CommandHandler} method with a subclass of {@link Command}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HandlerBenchmark {
+
+    private CommandExecutor executor;
+    private CommandSender sender;
+
+    @Setup
+    public void setup(final Blackhole blackhole) {
+        executor = new BenchmarkExecutor();
+        sender = new NoOpCommandSender();
+
+        executor.register(new AnnotatedHandlers(blackhole), "Annotated");
+        executor.register(new Command() {
+            @Override
+            public void execute(CommandSender sender, CallInformation information) {
+                blackhole.consume(information.getArgument(0));
+            }
+        }.setName("Subclassed").setUsage("None").setIdentifiers("subclassed").addArgument("value"));
+        executor.compile();
+    }
+
+    /**
+     * The handlers are declared in their own class, because JMH runs a generated subclass of the benchmark
+     */
+    public static class AnnotatedHandlers {
+        private final Blackhole blackhole;
+
+        public AnnotatedHandlers(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @CommandHandler(name = "Annotated", usage = "None", identifiers = "annotated", arguments = "value", minArguments = 1, maxArguments = 1)
+        public void annotated(CommandSender sender, CallInformation information) {
+            blackhole.consume(information.getArgument(0));
+        }
+    }
+
+    @Benchmark
+    public CallResult annotated() {
+        return executor.executeAll(sender, "annotated value");
+    }
+
+    @Benchmark
+    public CallResult subclassed() {
+        return executor.executeAll(sender, "subclassed value");
+    }
+}
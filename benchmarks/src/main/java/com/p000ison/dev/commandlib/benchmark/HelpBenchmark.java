@@ -0,0 +1,66 @@
+package com.p000ison.dev.commandlib.benchmark;
+
+import com.p000ison.dev.commandlib.CallResult;
+import com.p000ison.dev.commandlib.CommandExecutor;
+import com.p000ison.dev.commandlib.CommandSender;
+import com.p000ison.dev.commandlib.commands.HelpCommand;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the paging of the {@link HelpCommand}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HelpBenchmark {
+
+    private static final int ELEMENTS_PER_PAGE = 10;
+
+    @Param({"100", "10000"})
+    private int commands;
+
+    private CommandExecutor executor;
+    private CommandSender sender;
+    private String firstPage, lastPage;
+
+    @Setup
+    public void setup() {
+        executor = new BenchmarkExecutor();
+        executor.setDefaultElementsPerPage(ELEMENTS_PER_PAGE);
+        sender = new NoOpCommandSender();
+
+        for (int i = 0; i < commands; i++) {
+            executor.register(BenchmarkExecutor.createCommand("Command" + i, "command" + i));
+        }
+        executor.register(new HelpCommand(executor, "Help", "Lists the commands", "page", "/%s%s- %s", "help"));
+        executor.compile();
+
+        firstPage = "help 1";
+        lastPage = "help " + ((commands + 1 + ELEMENTS_PER_PAGE - 1) / ELEMENTS_PER_PAGE);
+    }
+
+    @Benchmark
+    public CallResult firstPage() {
+        return executor.executeAll(sender, firstPage);
+    }
+
+    @Benchmark
+    public CallResult lastPage() {
+        return executor.executeAll(sender, lastPage);
+    }
+}
@@ -0,0 +1,69 @@
+package com.p000ison.dev.commandlib.benchmark;
+
+import com.p000ison.dev.commandlib.CallResult;
+import com.p000ison.dev.commandlib.CommandExecutor;
+import com.p000ison.dev.commandlib.CommandSender;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the lookup of a root command depending on the number of registered commands
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LookupBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    private int commands;
+
+    @Param({"false", "true"})
+    private boolean recycle;
+
+    private CommandExecutor executor;
+    private CommandSender sender;
+    private String found, missing;
+
+    @Setup
+    public void setup() {
+        executor = new BenchmarkExecutor();
+        sender = new NoOpCommandSender();
+
+        for (int i = 0; i < commands; i++) {
+            executor.register(BenchmarkExecutor.createCommand("Command" + i, "command" + i));
+        }
+
+        executor.setRecycleCallInformation(recycle);
+        executor.compile();
+
+        found = "command" + (commands / 2);
+        missing = "unknown";
+    }
+
+    @Benchmark
+    public CallResult found() {
+        return executor.executeAll(sender, found);
+    }
+
+    /**
+     * A missing command also searches the suggestions
+     */
+    @Benchmark
+    public CallResult missing() {
+        return executor.executeAll(sender, missing);
+    }
+}
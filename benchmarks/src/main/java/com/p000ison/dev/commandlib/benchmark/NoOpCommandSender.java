@@ -0,0 +1,29 @@
+package com.p000ison.dev.commandlib.benchmark;
+
+import com.p000ison.dev.commandlib.Command;
+import com.p000ison.dev.commandlib.CommandSender;
+
+/**
+ * Represents a NoOpCommandSender, which drops all messages and has all permissions, so the benchmarks do not measure
+ * any console I/O
+ */
+public class NoOpCommandSender implements CommandSender {
+
+    @Override
+    public void sendMessage(String message) {
+    }
+
+    @Override
+    public void sendMessage(String message, Object... args) {
+    }
+
+    @Override
+    public boolean hasPermission(Command cmd) {
+        return true;
+    }
+
+    @Override
+    public boolean hasPermission(String permission) {
+        return true;
+    }
+}
@@ -0,0 +1,59 @@
+package com.p000ison.dev.commandlib.benchmark;
+
+import com.p000ison.dev.commandlib.Command;
+import com.p000ison.dev.commandlib.CommandExecutor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the registration of commands and the compilation of the dispatch graph
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class RegistrationBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    private int commands;
+
+    private Command[] created;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        created = new Command[commands];
+        for (int i = 0; i < commands; i++) {
+            created[i] = BenchmarkExecutor.createCommand("Command" + i, "command" + i);
+        }
+    }
+
+    @Benchmark
+    public CommandExecutor register() {
+        CommandExecutor executor = new BenchmarkExecutor();
+        for (Command command : created) {
+            executor.register(command);
+        }
+        return executor;
+    }
+
+    @Benchmark
+    public CommandExecutor registerAndCompile() {
+        CommandExecutor executor = register();
+        executor.compile();
+        return executor;
+    }
+}
@@ -5,20 +5,42 @@ package com.p000ison.dev.commandlib;
  */
 public final class Argument {
 
+    private static final int OPTIONAL = 1, DECIMAL = 1 << 1, INTEGER = 1 << 2, PAGE = 1 << 3;
+    /**
+     * Whether the value may be quoted, so it can contain spaces
+     */
+    private static final int QUOTED = 1 << 4;
+    /**
+     * Whether the value is the rest of the input, this can only be the last argument
+     */
+    private static final int GREEDY = 1 << 5;
+
     private final String name;
+    /**
+     * The options of this argument packed into a single byte, which keeps a argument at 24 instead of 32 bytes with
+     * compressed references (measured by the FootprintBenchmark)
+     */
+    private final byte options;
+    private final CompletionProvider completionProvider;
+
+    private Argument(String name, int options, CompletionProvider completionProvider) {
+        this.name = name;
+        this.options = (byte) options;
+        this.completionProvider = completionProvider;
+    }
 
-    private final boolean optional;
-    private final boolean decimal;
-    private final boolean integer;
-    private final boolean page;
+    private static int options(boolean optional, boolean decimal, boolean integer, boolean page) {
+        return (optional ? OPTIONAL : 0) | (decimal ? DECIMAL : 0) | (integer ? INTEGER : 0) | (page ? PAGE : 0);
+    }
+
+    public Argument(String name, boolean optional, boolean decimal,
+                    boolean integer, boolean page, CompletionProvider completionProvider) {
+        this(name, options(optional, decimal, integer, page), completionProvider);
+    }
 
     public Argument(String name, boolean optional, boolean decimal,
                     boolean integer, boolean page) {
-        this.name = name;
-        this.optional = optional;
-        this.decimal = decimal;
-        this.integer = integer;
-        this.page = page;
+        this(name, optional, decimal, integer, page, null);
     }
 
     public Argument(String name) {
@@ -33,24 +55,67 @@ public final class Argument {
         this(name, optional, false, false, page);
     }
 
+    public Argument(String name, boolean optional, CompletionProvider completionProvider) {
+        this(name, optional, false, false, false, completionProvider);
+    }
+
+    /**
+     * Creates a argument whose value may be quoted like <code>"two words"</code>. A quote inside the value is
+     * escaped as <code>\"</code>.
+     *
+     * @param name     The name
+     * @param optional Whether the argument is optional
+     * @return The argument
+     */
+    public static Argument quoted(String name, boolean optional) {
+        return new Argument(name, options(optional, false, false, false) | QUOTED, null);
+    }
+
+    /**
+     * Creates a argument which takes the rest of the input as it was typed, including the spaces. It must be the
+     * last argument of a command.
+     *
+     * @param name     The name
+     * @param optional Whether the argument is optional
+     * @return The argument
+     */
+    public static Argument greedy(String name, boolean optional) {
+        return new Argument(name, options(optional, false, false, false) | GREEDY, null);
+    }
+
     public final String getName() {
         return name;
     }
 
     public final boolean isRequired() {
-        return !optional;
+        return (options & OPTIONAL) == 0;
     }
 
     public final boolean isDecimal() {
-        return decimal;
+        return (options & DECIMAL) != 0;
     }
 
     public final boolean isInteger() {
-        return integer;
+        return (options & INTEGER) != 0;
     }
 
     public final boolean isPage() {
-        return page;
+        return (options & PAGE) != 0;
+    }
+
+    public final boolean isQuoted() {
+        return (options & QUOTED) != 0;
+    }
+
+    public final boolean isGreedy() {
+        return (options & GREEDY) != 0;
+    }
+
+    /**
+     * @return The provider which completes the value of this argument or null
+     */
+    public final CompletionProvider getCompletionProvider() {
+        return completionProvider;
     }
 
 
@@ -58,9 +123,11 @@ public final class Argument {
     public String toString() {
         return "Argument{" +
                 "name='" + name + '\'' +
-                ", optional=" + optional +
-                ", decimal=" + decimal +
-                ", integer=" + integer +
+                ", optional=" + !isRequired() +
+                ", decimal=" + isDecimal() +
+                ", integer=" + isInteger() +
+                ", quoted=" + isQuoted() +
+                ", greedy=" + isGreedy() +
                 '}';
     }
 }
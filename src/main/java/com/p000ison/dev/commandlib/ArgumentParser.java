@@ -0,0 +1,134 @@
+package com.p000ison.dev.commandlib;
+
+/**
+ * Parses numeric arguments without throwing exceptions. The parse methods write the value into a slot of a array and
+ * return whether the input was valid, so neither the value nor the error has to be boxed.
+ */
+final class ArgumentParser {
+
+    private ArgumentParser() {
+    }
+
+    /**
+     * Parses a decimal integer with a optional minus sign
+     *
+     * @param s      The input
+     * @param target The array to write the value to
+     * @param index  The slot in the array
+     * @return Whether the input was a valid long
+     */
+    static boolean parseLong(String s, long[] target, int index) {
+        if (s == null) {
+            return false;
+        }
+
+        final int length = s.length();
+        if (length == 0) {
+            return false;
+        }
+
+        // accumulate negatively, like Long.parseLong, so Long.MIN_VALUE fits
+        boolean negative = false;
+        int i = 0;
+        char first = s.charAt(0);
+        if (first == '-') {
+            if (length == 1) {
+                return false;
+            }
+            negative = true;
+            i++;
+        }
+
+        final long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        final long multiplyLimit = limit / 10;
+        long result = 0;
+
+        for (; i < length; i++) {
+            int digit = s.charAt(i) - '0';
+            if (digit < 0 || digit > 9 || result < multiplyLimit) {
+                return false;
+            }
+
+            result *= 10;
+            if (result < limit + digit) {
+                return false;
+            }
+            result -= digit;
+        }
+
+        target[index] = negative ? result : -result;
+        return true;
+    }
+
+    /**
+     * Parses a decimal number like 1, -2.5, .5 or 1e3
+     *
+     * @param s      The input
+     * @param target The array to write the value to
+     * @param index  The slot in the array
+     * @return Whether the input was a valid double
+     */
+    static boolean parseDouble(String s, double[] target, int index) {
+        if (!isDecimal(s)) {
+            return false;
+        }
+
+        // the format has been checked, so this does not throw
+        target[index] = Double.parseDouble(s);
+        return true;
+    }
+
+    private static boolean isDecimal(String s) {
+        if (s == null) {
+            return false;
+        }
+
+        final int length = s.length();
+        int i = 0;
+
+        if (i < length && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+            i++;
+        }
+
+        int digits = 0;
+        while (i < length && isDigit(s.charAt(i))) {
+            i++;
+            digits++;
+        }
+
+        if (i < length && s.charAt(i) == '.') {
+            i++;
+            while (i < length && isDigit(s.charAt(i))) {
+                i++;
+                digits++;
+            }
+        }
+
+        if (digits == 0) {
+            return false;
+        }
+
+        if (i < length && (s.charAt(i) == 'e' || s.charAt(i) == 'E')) {
+            i++;
+            if (i < length && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+                i++;
+            }
+
+            int exponentDigits = 0;
+            while (i < length && isDigit(s.charAt(i))) {
+                i++;
+                exponentDigits++;
+            }
+
+            if (exponentDigits == 0) {
+                return false;
+            }
+        }
+
+        return i == length;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
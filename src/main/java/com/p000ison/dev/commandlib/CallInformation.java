@@ -1,35 +1,170 @@
 package com.p000ison.dev.commandlib;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 /**
  * Represents a CallInformation
+ * <p>
+ * If {@link CommandExecutor#setRecycleCallInformation(boolean)} is enabled, a instance is reused for later calls once
+ * {@link CommandExecutor#onPostCommand(CallInformation)} returned. Handlers must not keep a reference to it then,
+ * except for asynchronous commands which always get their own instance.
  */
 public class CallInformation {
 
-    private final String identifier;
-    private final String[] arguments;
-    private final Command command;
-    private final CommandSender sender;
+    private String identifier;
+    /**
+     * The arguments are a view of the tokens array, which may be shared with other calls
+     */
+    private String[] tokens;
+    private int offset, length;
+    private String[] arguments;
+    private Command command;
+    private CommandSender sender;
 
     private final CommandExecutor executor;
 
+    /**
+     * The values of the integer and decimal arguments, parsed once at the dispatch. The arrays are kept if this
+     * instance gets recycled.
+     */
+    private Argument[] declared;
+    private int parsed;
+    private long[] longs;
+    private double[] doubles;
+    private int invalidArgument = -1;
+    /**
+     * Whether this information is used after the call returned, so it must not be recycled
+     */
+    private boolean detached;
+    /**
+     * The replies which have not been sent yet, only used if the replies are buffered
+     */
+    private boolean buffered;
+    private List<String> replies;
+    /**
+     * Single slots for parsing arguments which have not been declared as integer or decimal
+     */
+    private long[] longSlot;
+    private double[] doubleSlot;
+    /**
+     * The plan which parsed the arguments and the values of the flags, or null if the command has no plan
+     */
+    private ParsePlan plan;
+    private String[] flags;
+
     protected CallInformation(CommandExecutor executor, Command command, CommandSender sender, String identifier, String[] arguments) {
+        this(executor, command, sender, identifier, arguments, 0, arguments.length);
+    }
+
+    protected CallInformation(CommandExecutor executor, Command command, CommandSender sender, String identifier, String[] tokens, int offset, int length) {
+        this.executor = executor;
+        reset(command, sender, identifier, tokens, offset, length);
+    }
+
+    /**
+     * Prepares this instance for a new call
+     */
+    final void reset(Command command, CommandSender sender, String identifier, String[] tokens, int offset, int length) {
         this.identifier = identifier;
-        this.arguments = arguments;
+        this.tokens = tokens;
+        this.offset = offset;
+        this.length = length;
         this.command = command;
         this.sender = sender;
-        this.executor = executor;
+        this.arguments = null;
+        this.declared = null;
+        this.parsed = 0;
+        this.invalidArgument = -1;
+        this.detached = false;
+        this.buffered = false;
+        this.plan = null;
+        this.flags = null;
+        if (replies != null) {
+            replies.clear();
+        }
+    }
+
+    /**
+     * Releases the references to the call, so a recycled instance does not keep them alive
+     */
+    final void clear() {
+        reset(null, null, null, null, 0, 0);
+    }
+
+    /**
+     * Replaces the tokens by the result of the plan of the command
+     */
+    final void setParsed(ParsePlan plan, ParsePlan.Result result) {
+        this.tokens = result.arguments;
+        this.offset = 0;
+        this.length = result.arguments.length;
+        this.arguments = null;
+        this.plan = plan;
+        this.flags = result.flags;
     }
 
     public String getIdentifier() {
         return identifier;
     }
 
+    /**
+     * Gets a array of the arguments. It gets copied out of the shared tokens the first time this is called, so
+     * prefer {@link #getArgument(int)} and {@link #getArgumentsLength()}.
+     *
+     * @return The arguments
+     */
     public String[] getArguments() {
+        String[] arguments = this.arguments;
+        if (arguments == null) {
+            if (offset == 0 && length == tokens.length) {
+                arguments = tokens;
+            } else {
+                arguments = new String[length];
+                System.arraycopy(tokens, offset, arguments, 0, length);
+            }
+            this.arguments = arguments;
+        }
         return arguments;
     }
 
+    public String getArgument(int index) {
+        if (index < 0 || index >= length) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        return tokens[offset + index];
+    }
+
+    public int getArgumentsLength() {
+        return length;
+    }
+
+    /**
+     * Checks whether a flag is set
+     *
+     * @param name The long or the short name of the flag
+     * @return Whether the flag is set
+     * @see Command#addFlag(Flag)
+     */
+    public boolean hasFlag(String name) {
+        return getFlag(name) != null;
+    }
+
+    /**
+     * Gets the value of a flag
+     *
+     * @param name The long or the short name of the flag
+     * @return The value, a empty string if the flag takes no value, or null if the flag is not set
+     */
+    public String getFlag(String name) {
+        if (plan == null) {
+            return null;
+        }
+        int index = plan.indexOfFlag(name);
+        return index == -1 ? null : flags[index];
+    }
+
     public CommandSender getSender() {
         return sender;
     }
@@ -38,8 +173,74 @@ public class CallInformation {
         return command;
     }
 
+    /**
+     * Sends a message to the sender. If the replies are buffered it is sent together with the other replies once the
+     * command is done.
+     *
+     * @param message The message
+     * @see CommandExecutor#setReplyBuffering(boolean)
+     */
     public void reply(String message) {
-        getSender().sendMessage(message);
+        if (!buffered) {
+            getSender().sendMessage(message);
+            return;
+        }
+
+        if (replies == null) {
+            replies = new ArrayList<String>();
+        }
+        replies.add(message);
+    }
+
+    /**
+     * Sends the buffered replies now
+     */
+    public void flush() {
+        List<String> replies = this.replies;
+        if (replies == null || replies.isEmpty()) {
+            return;
+        }
+
+        try {
+            if (replies.size() == 1) {
+                sender.sendMessage(replies.get(0));
+            } else {
+                sender.sendMessages(replies);
+            }
+        } finally {
+            replies.clear();
+        }
+    }
+
+    final void setBuffered(boolean buffered) {
+        this.buffered = buffered;
+    }
+
+    final boolean isBuffered() {
+        return buffered;
+    }
+
+    /**
+     * @return The buffered replies which have not been sent yet
+     */
+    final String[] getReplies() {
+        return replies == null ? new String[0] : replies.toArray(new String[replies.size()]);
+    }
+
+    /**
+     * Continues this call in steps on the following ticks of the executor, so a long running command does not block
+     * a single tick. This information stays valid until the task is done.
+     *
+     * @param task The task to run
+     * @see CommandExecutor#tick()
+     */
+    public void schedule(CommandTask task) {
+        detached = true;
+        executor.schedule(this, task);
+    }
+
+    final boolean isDetached() {
+        return detached;
     }
 
     public int getPage(int elements) {
@@ -47,8 +248,9 @@ public class CallInformation {
     }
 
     public int getPage(int elements, int elementsPerPage) {
-        for (int i = 0; i < command.getArguments().size(); i++) {
-            Argument argument = command.getArguments().get(i);
+        List<Argument> declaredArguments = command.getArguments();
+        for (int i = 0; i < declaredArguments.size(); i++) {
+            Argument argument = declaredArguments.get(i);
             if (argument.isPage()) {
                 int page = getInteger(i);
 
@@ -123,14 +325,122 @@ public class CallInformation {
         return end;
     }
 
+    /**
+     * Gets a argument as integer
+     *
+     * @param index The index of the argument
+     * @return The value or -1 if the argument is missing or no integer
+     */
     public int getInteger(int index) {
-        try {
-            return CommandExecutor.parseInt(getArguments()[index]);
-        } catch (NumberFormatException e) {
+        if (index < 0 || index >= length) {
             return -1;
-        } catch (ArrayIndexOutOfBoundsException e) {
+        }
+
+        long[] value = getLongSlot();
+        if (!ArgumentParser.parseLong(tokens[offset + index], value, 0) || value[0] != (int) value[0]) {
             return -1;
         }
+        return (int) value[0];
+    }
+
+    /**
+     * Gets the value of a integer argument. Arguments which are declared as integer are parsed once at the dispatch,
+     * others are parsed now.
+     *
+     * @param index The index of the argument
+     * @return The value or 0 if the argument is missing or no integer
+     */
+    public long getLong(int index) {
+        if (index >= 0 && index < parsed && declared[index].isInteger()) {
+            return longs[index];
+        }
+
+        long[] value = getLongSlot();
+        return index >= 0 && index < length && ArgumentParser.parseLong(tokens[offset + index], value, 0) ? value[0] : 0;
+    }
+
+    /**
+     * @param index The index of the argument
+     * @return The value of a integer argument or 0 if the argument is missing, no integer or does not fit into a int
+     * @see #getLong(int)
+     */
+    public int getInt(int index) {
+        long value = getLong(index);
+        return value == (int) value ? (int) value : 0;
+    }
+
+    /**
+     * Gets the value of a decimal argument. Arguments which are declared as decimal are parsed once at the dispatch,
+     * others are parsed now.
+     *
+     * @param index The index of the argument
+     * @return The value or 0 if the argument is missing or no decimal
+     */
+    public double getDouble(int index) {
+        if (index >= 0 && index < parsed && declared[index].isDecimal()) {
+            return doubles[index];
+        }
+
+        double[] value = getDoubleSlot();
+        return index >= 0 && index < length && ArgumentParser.parseDouble(tokens[offset + index], value, 0) ? value[0] : 0;
+    }
+
+    private long[] getLongSlot() {
+        if (longSlot == null) {
+            longSlot = new long[1];
+        }
+        return longSlot;
+    }
+
+    private double[] getDoubleSlot() {
+        if (doubleSlot == null) {
+            doubleSlot = new double[1];
+        }
+        return doubleSlot;
+    }
+
+    /**
+     * Parses the integer and decimal arguments into their slots. Integer arguments have to fit into a int.
+     *
+     * @param declared The declared arguments of the command
+     * @return Whether all arguments are valid, otherwise the index is available by {@link #getInvalidArgument()}
+     */
+    final boolean parseArguments(Argument[] declared) {
+        int count = Math.min(declared.length, length);
+
+        for (int i = 0; i < count; i++) {
+            Argument argument = declared[i];
+            String value = tokens[offset + i];
+
+            if (argument.isInteger()) {
+                if (longs == null || longs.length < count) {
+                    longs = new long[count];
+                }
+                if (!ArgumentParser.parseLong(value, longs, i) || longs[i] != (int) longs[i]) {
+                    invalidArgument = i;
+                    return false;
+                }
+            } else if (argument.isDecimal()) {
+                if (doubles == null || doubles.length < count) {
+                    doubles = new double[count];
+                }
+                if (!ArgumentParser.parseDouble(value, doubles, i)) {
+                    invalidArgument = i;
+                    return false;
+                }
+            }
+        }
+
+        this.declared = declared;
+        this.parsed = count;
+        return true;
+    }
+
+    /**
+     * @return The index of the argument which has a invalid type or -1
+     */
+    public int getInvalidArgument() {
+        return invalidArgument;
     }
 
 
@@ -138,7 +448,7 @@ public class CallInformation {
     public String toString() {
         return "CallInformation{" +
                 "identifier='" + identifier + '\'' +
-                ", arguments=" + Arrays.toString(arguments) +
+                ", arguments=" + Arrays.toString(getArguments()) +
                 ", sender=" + sender +
                 '}';
     }
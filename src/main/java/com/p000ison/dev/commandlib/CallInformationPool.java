@@ -0,0 +1,62 @@
+package com.p000ison.dev.commandlib;
+
+/**
+ * Represents a CallInformationPool, which keeps one {@link CallInformation} per thread and nesting depth of the
+ * dispatch. A handler which executes another command gets a new depth, so the outer information stays untouched.
+ */
+final class CallInformationPool {
+
+    private static final int INITIAL_DEPTH = 4;
+
+    private final ThreadLocal<Frames> frames = new ThreadLocal<Frames>() {
+        @Override
+        protected Frames initialValue() {
+            return new Frames();
+        }
+    };
+
+    /**
+     * Gets the frames of the current thread. The caller should keep the frames for the whole call, so the thread
+     * local is only looked up once.
+     *
+     * @return The frames of the current thread
+     */
+    Frames get() {
+        return frames.get();
+    }
+
+    static final class Frames {
+        private CallInformation[] infos = new CallInformation[INITIAL_DEPTH];
+        private int depth;
+
+        /**
+         * Gets the pooled information of the next depth
+         *
+         * @return The pooled information, or null if a new one has to be created
+         */
+        CallInformation acquire() {
+            if (depth == infos.length) {
+                CallInformation[] extended = new CallInformation[depth << 1];
+                System.arraycopy(infos, 0, extended, 0, depth);
+                infos = extended;
+            }
+            return infos[depth++];
+        }
+
+        /**
+         * Returns the information of the current depth to the pool
+         *
+         * @param info     The information which has been acquired
+         * @param detached Whether the information escaped the call and must not be reused
+         */
+        void release(CallInformation info, boolean detached) {
+            depth--;
+            if (detached) {
+                infos[depth] = null;
+            } else {
+                info.clear();
+                infos[depth] = info;
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.p000ison.dev.commandlib;
+
+/**
+ * Represents the result of a dispatch
+ */
+public enum CallResult {
+    /**
+     * At least one command has been executed, or has been scheduled if it is asynchronous
+     */
+    SUCCESS,
+    NOT_FOUND,
+    DISPLAYED_COMMAND_HELP,
+    NO_PERMISSION,
+    /**
+     * A argument could not be parsed as the declared integer or decimal
+     */
+    INVALID_ARGUMENT,
+    /**
+     * The sender called the command more often than its {@link RateLimit} allows
+     */
+    RATE_LIMITED
+}
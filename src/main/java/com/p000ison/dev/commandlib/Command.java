@@ -1,15 +1,35 @@
 package com.p000ison.dev.commandlib;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 /**
  * Represents a Command
+ * <p>
+ * The sub-commands, arguments, flags, call methods and permissions are stored in arrays which are copied on every
+ * change and never modified after they have been published. So they can be changed while other threads dispatch
+ * commands, the dispatch always sees either the old or the new array.
  */
 public class Command {
 
+    private static final Command[] NO_COMMANDS = new Command[0];
+    private static final Argument[] NO_ARGUMENTS = new Argument[0];
+    private static final Flag[] NO_FLAGS = new Flag[0];
+    private static final String[] NO_PERMISSIONS = new String[0];
+
+    /**
+     * Counts the modifications of the commands which are registered at more than one {@link CommandExecutor}
+     */
+    private static final AtomicInteger sharedModifications = new AtomicInteger();
+    private static final AtomicIntegerFieldUpdater<Command> VERSION = AtomicIntegerFieldUpdater.newUpdater(Command.class, "version");
+
     /**
      * The usage and the name of this command
      */
@@ -19,7 +39,7 @@ public class Command {
      * A list of sub-commands, you can change this during runtime
      */
 
-    private List<Command> subCommands = new ArrayList<Command>();
+    private volatile Command[] subCommands = NO_COMMANDS;
     /**
      * A array of the identifiers to detect this command, you can NOT change this during runtime
      */
@@ -28,24 +48,49 @@ public class Command {
      * A List of the arguments for this command, you can change this during runtime
      */
 
-    private List<Argument> arguments = new ArrayList<Argument>();
+    private volatile Argument[] arguments = NO_ARGUMENTS;
+    /**
+     * A List of the flags for this command, you can change this during runtime
+     */
+    private volatile Flag[] flags = NO_FLAGS;
 
     /**
      * A List of the callMethods for this command, you can change this during runtime
      * If this command is being executed, those methods get called, too (Aliases)
      */
 
-    private List<Command> callMethods = new ArrayList<Command>();
+    private volatile Command[] callMethods = NO_COMMANDS;
 
     /**
      * A List of the permission to execute this command, you can change this during runtime
      */
 
-    private List<String> permissions = new ArrayList<String>();
+    private volatile String[] permissions = NO_PERMISSIONS;
 
 
     private boolean needAllPermissions;
     private boolean infinite;
+    /**
+     * Whether this command gets executed on the async executor of the {@link CommandExecutor}
+     */
+    private boolean async;
+    /**
+     * The state of the senders and the rate limit, which is kept if the command gets recompiled
+     */
+    private RateLimiter rateLimiter;
+    /**
+     * How long the replies of this command are cached in nanoseconds, or 0 if they are not
+     */
+    private long cacheTtl;
+    /**
+     * The modification counter of the executor this command is registered at, {@link #sharedModifications} if it is
+     * registered at more than one executor, or null if it is not registered
+     */
+    private volatile AtomicInteger tracker;
+    /**
+     * Counts the modifications of this command, so data derived from it can be cached as long as it stays the same
+     */
+    private volatile int version;
 
     protected Command(final String name, final String usage) {
         this.name = name;
@@ -99,15 +144,30 @@ public class Command {
     }
 
 
+    /**
+     * Gets the sub-commands of this command. Use {@link #addSubCommand(Command)} to modify them.
+     *
+     * @return A unmodifiable snapshot of the sub-commands
+     */
     public final List<Command> getSubCommands() {
-        return subCommands;
+        return Collections.unmodifiableList(Arrays.asList(subCommands));
     }
 
     public final int getMaxArguments() {
-        return arguments.size();
+        return arguments.length;
     }
 
     public final int getMinArguments() {
+        return getMinArguments(arguments);
+    }
+
+    /**
+     * Counts the required arguments
+     *
+     * @param arguments The arguments
+     * @return The number of required arguments
+     */
+    static int getMinArguments(Argument[] arguments) {
         int min = 0;
 
         for (final Argument argument : arguments) {
@@ -120,26 +180,56 @@ public class Command {
     }
 
 
+    /**
+     * Gets the arguments of this command. Use {@link #addArgument(Argument)} to modify them.
+     *
+     * @return A unmodifiable snapshot of the arguments
+     */
     public final List<Argument> getArguments() {
-        return arguments;
+        return Collections.unmodifiableList(Arrays.asList(arguments));
     }
 
 
+    /**
+     * Gets the flags of this command. Use {@link #addFlag(Flag)} to modify them.
+     *
+     * @return A unmodifiable snapshot of the flags
+     */
+    public final List<Flag> getFlags() {
+        return Collections.unmodifiableList(Arrays.asList(flags));
+    }
+
+
+    /**
+     * Gets the call methods of this command. Use {@link #addAlias(Command)} to modify them.
+     *
+     * @return A unmodifiable snapshot of the call methods
+     */
     public final List<Command> getCallMethods() {
-        return callMethods;
+        return Collections.unmodifiableList(Arrays.asList(callMethods));
     }
 
 
+    /**
+     * Gets the permissions of this command. Use {@link #addPermission(String)} to modify them.
+     *
+     * @return A unmodifiable snapshot of the permissions
+     */
     public final List<String> getPermissions() {
-        return permissions;
+        return Collections.unmodifiableList(Arrays.asList(permissions));
+    }
+
+    public final boolean isNeedAllPermissions() {
+        return needAllPermissions;
     }
 
     public final boolean hasCallMethods() {
-        return !callMethods.isEmpty();
+        return callMethods.length != 0;
     }
 
     public final boolean hasPermission(CommandSender sender) {
-        if (permissions.isEmpty()) {
+        String[] permissions = this.permissions;
+        if (permissions.length == 0) {
             return true;
         }
 
@@ -166,72 +256,204 @@ public class Command {
 
 
     public final Command addArgument(Argument argument) {
-        this.arguments.add(argument);
+        synchronized (this) {
+            if (arguments.length != 0 && arguments[arguments.length - 1].isGreedy()) {
+                throw new CommandException(this, "The greedy argument of the command %s must be the last one!", this.getName());
+            }
+            this.arguments = append(arguments, argument);
+        }
+        modified();
         return this;
     }
 
     public final Command addArgument(String name) {
-        this.arguments.add(new Argument(name));
-        return this;
+        return addArgument(new Argument(name));
     }
 
     public final Command addArgument(String name, boolean optional) {
-        this.arguments.add(new Argument(name, optional));
-        return this;
+        return addArgument(new Argument(name, optional));
     }
 
     public final Command addArgument(String name, boolean optional, boolean page) {
-        this.arguments.add(new Argument(name, optional, page));
-        return this;
+        return addArgument(new Argument(name, optional, page));
     }
 
     public final Command createArguments(int minArguments, int maxArguments, String[] names) {
-        this.arguments = CommandExecutor.createArguments(maxArguments, minArguments, names);
+        List<Argument> arguments = CommandExecutor.createArguments(maxArguments, minArguments, names);
+        this.arguments = arguments.toArray(new Argument[arguments.size()]);
+        modified();
+        return this;
+    }
+
+
+    /**
+     * Adds a flag. The commands with flags, quoted or greedy arguments parse the input by a {@link ParsePlan}.
+     *
+     * @param flag The flag
+     * @return This command
+     */
+    public final Command addFlag(Flag flag) {
+        synchronized (this) {
+            for (Flag current : flags) {
+                if (flag.getShortName() != 0 && flag.getShortName() == current.getShortName()
+                        || flag.getLongName() != null && flag.getLongName().equals(current.getLongName())) {
+                    throw new CommandException(this, "The command %s already has the flag %s!", this.getName(), flag.getName());
+                }
+            }
+            this.flags = append(flags, flag);
+        }
+        modified();
         return this;
     }
 
 
     public final Command addPermission(String permission) {
-        this.permissions.add(permission);
+        synchronized (this) {
+            this.permissions = append(permissions, intern(permission));
+        }
+        modified();
         return this;
     }
 
 
+    /**
+     * Sets the identifiers. The array is copied, the returned array of {@link #getIdentifiers()} must not be modified.
+     *
+     * @param identifiers The identifiers
+     * @return This command
+     */
     public final Command setIdentifiers(String... identifiers) {
-        this.identifiers = identifiers;
+        this.identifiers = identifiers.clone();
+        modified();
         return this;
     }
 
 
     public final Command addAlias(Command alias) {
-        this.callMethods.add(alias);
+        synchronized (this) {
+            this.callMethods = append(callMethods, alias);
+        }
+        modified();
         return this;
     }
 
 
     public final Command setName(String name) {
         this.name = name;
+        modified();
         return this;
     }
 
 
     public final Command setUsage(String usage) {
         this.usage = usage;
+        modified();
         return this;
     }
 
 
     public final Command setNeedAllPermissions(boolean needAllPermissions) {
         this.needAllPermissions = needAllPermissions;
+        modified();
+        return this;
+    }
+
+
+    /**
+     * Sets whether this command should be executed asynchronous. Asynchronous commands of the same sender are executed
+     * in the order they have been called. {@link CommandExecutor#onPreCommand(CallInformation)} is called on the
+     * dispatching thread, the command itself and {@link CommandExecutor#onPostCommand(CallInformation)} on the worker.
+     *
+     * @param async Whether this command is asynchronous
+     * @return This command
+     */
+    public final Command setAsync(boolean async) {
+        this.async = async;
+        modified();
+        return this;
+    }
+
+
+    /**
+     * Limits how often a sender can call this command. Calls above the limit are rejected before the command is
+     * executed and reported to {@link CommandExecutor#onRateLimited(CommandSender, Command, long)}.
+     *
+     * @param rateLimit The rate limit, or null to remove it
+     * @return This command
+     */
+    public final Command setRateLimit(RateLimit rateLimit) {
+        this.rateLimiter = rateLimit == null ? null : new RateLimiter(rateLimit);
+        modified();
+        return this;
+    }
+
+    /**
+     * Allows a sender to call this command once per cooldown
+     *
+     * @param cooldown The time between two calls
+     * @param unit     The unit of the cooldown
+     * @return This command
+     * @see #setRateLimit(RateLimit)
+     */
+    public final Command setCooldown(long cooldown, TimeUnit unit) {
+        return setRateLimit(RateLimit.cooldown(cooldown, unit));
+    }
+
+
+    /**
+     * Declares that the replies of this command only depend on its arguments and the permissions of the sender. The
+     * {@link CommandExecutor} then caches the replies and sends them again on the next equal call, without executing
+     * this command. Only messages sent with {@link CallInformation#reply(String)} are cached, a call which replies
+     * nothing is not cached at all, so a command which sends its messages directly to the sender is executed every
+     * time. The cached replies are dropped if this command gets modified.
+     *
+     * @param ttl  How long the replies are cached, or 0 to disable the caching
+     * @param unit The unit of the ttl
+     * @return This command
+     * @see CommandExecutor#invalidateReplies(Command)
+     */
+    public final Command setCacheable(long ttl, TimeUnit unit) {
+        if (ttl < 0) {
+            throw new IllegalArgumentException("The ttl must not be negative!");
+        }
+        this.cacheTtl = unit.toNanos(ttl);
+        modified();
         return this;
     }
 
 
     public final Command addSubCommand(Command subCommand) {
-        this.subCommands.add(subCommand);
+        synchronized (this) {
+            this.subCommands = append(subCommands, subCommand);
+        }
+        trackSubCommand(subCommand);
+        modified();
         return this;
     }
 
+    /**
+     * Removes a sub-command
+     *
+     * @param subCommand The sub-command
+     * @return Whether the sub-command has been removed
+     */
+    public final boolean removeSubCommand(Command subCommand) {
+        synchronized (this) {
+            Command[] subCommands = this.subCommands;
+            for (int i = 0; i < subCommands.length; i++) {
+                if (subCommands[i] == subCommand) {
+                    Command[] removed = new Command[subCommands.length - 1];
+                    System.arraycopy(subCommands, 0, removed, 0, i);
+                    System.arraycopy(subCommands, i + 1, removed, i, removed.length - i);
+                    this.subCommands = removed;
+                    modified();
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     //================================================================================
     //  Execute methods
     //================================================================================
@@ -239,12 +461,6 @@ public class Command {
     public void execute(final CommandSender sender, final CallInformation information) {
     }
 
-    void executeCallMethods(CommandSender sender, CallInformation info) {
-        for (Command command : getCallMethods()) {
-            command.execute(sender, info);
-        }
-    }
-
     //================================================================================
     // Internal modify methods
     //================================================================================
@@ -260,19 +476,77 @@ public class Command {
     }
 
     void addArguments(Collection<Argument> arguments) {
-        this.arguments.addAll(arguments);
+        synchronized (this) {
+            this.arguments = appendAll(this.arguments, arguments);
+        }
+        modified();
     }
 
     void addCallMethod(Command command) {
-        this.callMethods.add(command);
+        synchronized (this) {
+            this.callMethods = append(callMethods, command);
+        }
+        modified();
     }
 
     void addSubCommands(Collection<Command> subCommands) {
-        this.subCommands.addAll(subCommands);
+        synchronized (this) {
+            this.subCommands = appendAll(this.subCommands, subCommands);
+        }
+        for (Command subCommand : subCommands) {
+            trackSubCommand(subCommand);
+        }
+        modified();
     }
 
     void addPermissions(Collection<String> permissions) {
-        this.permissions.addAll(permissions);
+        synchronized (this) {
+            String[] interned = appendAll(this.permissions, permissions);
+            for (int i = this.permissions.length; i < interned.length; i++) {
+                interned[i] = intern(interned[i]);
+            }
+            this.permissions = interned;
+        }
+        modified();
+    }
+
+    /**
+     * Gets the arguments without a copy, the array must not be modified
+     */
+    final Argument[] getArgumentArray() {
+        return arguments;
+    }
+
+    /**
+     * Gets the permissions without a copy, the array must not be modified
+     */
+    final String[] getPermissionArray() {
+        return permissions;
+    }
+
+    /**
+     * Interns a permission, a lot of commands usually share the same permissions
+     */
+    private static String intern(String string) {
+        return string == null ? null : string.intern();
+    }
+
+    /**
+     * Copies a array with a element appended, the array itself is never modified
+     */
+    private static <T> T[] append(T[] array, T element) {
+        T[] copy = Arrays.copyOf(array, array.length + 1);
+        copy[array.length] = element;
+        return copy;
+    }
+
+    private static <T> T[] appendAll(T[] array, Collection<? extends T> elements) {
+        T[] copy = Arrays.copyOf(array, array.length + elements.size());
+        int i = array.length;
+        for (T element : elements) {
+            copy[i++] = element;
+        }
+        return copy;
     }
 
     void addAliases(Collection<Command> aliases) {
@@ -281,6 +555,71 @@ public class Command {
         }
     }
 
+    /**
+     * Marks that this command has been modified
+     */
+    final void modified() {
+        VERSION.incrementAndGet(this);
+        AtomicInteger tracker = this.tracker;
+        if (tracker != null) {
+            tracker.incrementAndGet();
+        }
+    }
+
+    /**
+     * Tracks the modifications of this command and its sub-commands by the modification counter of a executor, so
+     * only the executors of a command recompile their graph if it gets modified. A command which is registered at
+     * more than one executor is tracked by a counter which is shared by all executors.
+     *
+     * @param counter The modification counter of the executor
+     */
+    final void track(AtomicInteger counter) {
+        track(counter, Collections.newSetFromMap(new IdentityHashMap<Command, Boolean>()));
+    }
+
+    private void track(AtomicInteger counter, Set<Command> visited) {
+        // a command which is used multiple times in the tree is tracked only once, this also stops cycles
+        if (!visited.add(this)) {
+            return;
+        }
+
+        synchronized (this) {
+            AtomicInteger current = tracker;
+            if (current == null) {
+                tracker = counter;
+            } else if (current != counter) {
+                tracker = sharedModifications;
+            }
+        }
+
+        for (Command subCommand : subCommands) {
+            subCommand.track(counter, visited);
+        }
+    }
+
+    private void trackSubCommand(Command subCommand) {
+        AtomicInteger tracker = this.tracker;
+        if (tracker != null) {
+            subCommand.track(tracker);
+        }
+    }
+
+    /**
+     * @return The number of modifications of this command
+     */
+    final int getVersion() {
+        return version;
+    }
+
+    /**
+     * Gets the number of modifications of the commands which are registered at more than one executor
+     *
+     * @return The modification count
+     */
+    static int getSharedModifications() {
+        return sharedModifications.get();
+    }
+
     //================================================================================
     // Additional methods
     //================================================================================
@@ -309,11 +648,33 @@ public class Command {
         return name.hashCode();
     }
 
+    public final boolean isAsync() {
+        return async;
+    }
+
+    public final RateLimit getRateLimit() {
+        RateLimiter rateLimiter = this.rateLimiter;
+        return rateLimiter == null ? null : rateLimiter.getLimit();
+    }
+
+    final RateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    public final boolean isCacheable() {
+        return cacheTtl > 0;
+    }
+
+    public final long getCacheTtl(TimeUnit unit) {
+        return unit.convert(cacheTtl, TimeUnit.NANOSECONDS);
+    }
+
     public boolean isInfinite() {
         return infinite;
     }
 
     public void setInfinite(boolean infinite) {
         this.infinite = infinite;
+        modified();
     }
 }
@@ -12,7 +12,7 @@ public class CommandException extends RuntimeException {
     }
 
     public CommandException(Command command, Throwable cause, String message, Object... args) {
-        super(String.format(message, args), cause);
+        super(MessageTemplate.of(message).format(args), cause);
         this.command = command;
     }
 
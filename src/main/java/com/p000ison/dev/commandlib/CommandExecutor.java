@@ -1,103 +1,539 @@
 package com.p000ison.dev.commandlib;
 
-import org.apache.commons.lang.StringUtils;
-
-import java.lang.reflect.Method;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 /**
  * Represents a CommandExecutor
  */
 public abstract class CommandExecutor {
 
+    /**
+     * The registered commands, only changed while holding the lock of the list. Every change publishes a new
+     * snapshot, so the dispatch reads a consistent registry without taking the lock.
+     */
     private final List<Command> commands = new ArrayList<Command>(1);
+    private final Set<Command> registered = new HashSet<Command>();
+    /**
+     * The snapshot of the registered commands, or null if it has to be copied again after a change
+     */
+    private volatile Command[] snapshot;
+    /**
+     * Counts the changes of the registry and the modifications of the registered commands and their sub-commands
+     */
+    private final AtomicInteger modifications = new AtomicInteger();
+    /**
+     * The compiled dispatch graph, gets recompiled if a command of this executor has been modified
+     */
+    private volatile CommandGraph graph;
+
+    private final SenderQueues queues = new SenderQueues();
+    private final PermissionCache permissionCache = new PermissionCache();
+    private volatile boolean permissionCaching;
+    private volatile Executor asyncExecutor;
+    private final CallInformationPool callInformationPool = new CallInformationPool();
+    private volatile boolean recycleCallInformation;
+    private final DispatchMetrics metrics = new DispatchMetrics();
+    private volatile boolean metricsEnabled;
+    private final TickScheduler scheduler = new TickScheduler(this);
+    private volatile long tickBudget = TimeUnit.MILLISECONDS.toNanos(5);
+    private volatile boolean replyBuffering;
+    private volatile ReplyCache replyCache = new ReplyCache(1024);
 
     private int defaultElementsPerPage = 10;
+    private boolean ignoreCase;
+    private int maxSuggestions = 3;
+    private int maxSuggestionDistance = 2;
 
-    public void executeAll(CommandSender sender, String command) {
+    public CallResult executeAll(CommandSender sender, String command) {
+        return executeAll(sender, CommandLine.parse(command));
+    }
 
-        String[] arguments = command.split(" ");
-        if (arguments.length == 0) {
-            return;
+    public CallResult executeAll(CommandSender sender, CommandLine line) {
+        return executeAll(sender, line, null);
+    }
+
+    public CallResult executeAll(CommandSender sender, String identifier, String[] arguments) {
+        return executeAll(sender, identifier, arguments, 0, arguments.length, null, null);
+    }
+
+    /**
+     * Executes a command line like {@link #executeAll(CommandSender, String)}, but returns a future which completes
+     * once all asynchronous commands of this line have been executed. If no asynchronous command has been called it
+     * is already completed.
+     *
+     * @param sender  The sender
+     * @param command The command line
+     * @return A future which gets completed with the result of the dispatch
+     */
+    public CompletableFuture<CallResult> submit(CommandSender sender, String command) {
+        Completion completion = new Completion();
+        final CallResult result = executeAll(sender, CommandLine.parse(command), completion);
+
+        if (completion.last == null) {
+            return CompletableFuture.completedFuture(result);
+        }
+
+        return completion.last.thenApply(new Function<Void, CallResult>() {
+            @Override
+            public CallResult apply(Void ignored) {
+                return result;
+            }
+        });
+    }
+
+    /**
+     * Executes many command lines, for example a script. The lines are executed in the given order like single calls
+     * of {@link #executeAll(CommandSender, String)}, so a line sees the commands which the previous lines registered.
+     *
+     * @param sender The sender
+     * @param lines  The command lines
+     * @return The result of every line, in the same order as the lines
+     */
+    public CallResult[] executeBatch(CommandSender sender, List<String> lines) {
+        CallResult[] results = new CallResult[lines.size()];
+        for (int i = 0; i < results.length; i++) {
+            results[i] = executeAll(sender, lines.get(i));
+        }
+        return results;
+    }
+
+    public CallResult[] executeBatch(CommandSender sender, String... lines) {
+        return executeBatch(sender, Arrays.asList(lines));
+    }
+
+    /**
+     * Executes a script with one command per line. Empty lines and lines starting with # are skipped.
+     *
+     * @param sender The sender
+     * @param script The script
+     * @return The result of every executed line
+     * @throws IOException If the script can not be read
+     */
+    public CallResult[] executeScript(CommandSender sender, Reader script) throws IOException {
+        List<String> lines = new ArrayList<String>();
+        BufferedReader reader = new BufferedReader(script);
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            String trimmed = line.trim();
+            if (!trimmed.isEmpty() && trimmed.charAt(0) != '#') {
+                lines.add(trimmed);
+            }
         }
 
-        String identifier = arguments[0];
+        return executeBatch(sender, lines);
+    }
 
-        if (arguments.length >= 1) {
-            arguments = removeUntil(arguments, 1);
+    private CallResult executeAll(CommandSender sender, CommandLine line, Completion completion) {
+        if (line.isEmpty()) {
+            return CallResult.NOT_FOUND;
         }
 
-        executeAll(sender, identifier, arguments);
+        String[] tokens = line.getTokens();
+        return executeAll(sender, tokens[0], tokens, 1, line.size() - 1, line, completion);
+    }
+
+    private CallResult executeAll(CommandSender sender, String identifier, String[] tokens, int offset, int length, CommandLine line, Completion completion) {
+        return executeAll(sender, identifier, tokens, offset, length, line, getGraph().getRoot().get(identifier), completion);
+    }
+
+    private CallResult executeAll(CommandSender sender, String identifier, String[] tokens, int offset, int length, CommandLine line, CompiledCommand[] candidates, Completion completion) {
+        boolean measure = metricsEnabled;
+        long start = measure ? System.nanoTime() : 0;
+
+        CallResult result = dispatch(sender, identifier, tokens, offset, length, line, candidates, completion);
+        if (result == CallResult.NOT_FOUND) {
+            onCommandNotFound(sender, identifier, getSuggestions(sender, identifier));
+        }
+
+        if (measure) {
+            metrics.recordOutcome(result, System.nanoTime() - start);
+        }
+        return result;
     }
 
-    public void executeAll(CommandSender sender, String identifier, String[] arguments) {
-        if (executeAll(sender, identifier, arguments, commands) == CallResult.NOT_FOUND) {
-            onCommandNotFound(sender);
+    /**
+     * Parses the arguments by the plan of a command. The plan works on the raw input of the line, if the arguments
+     * have been passed as array they are joined by spaces.
+     */
+    private static ParsePlan.Result parse(ParsePlan plan, String[] tokens, int offset, int length, CommandLine line) {
+        if (line != null) {
+            return plan.parse(line.getInput(), length == 0 ? line.getInput().length() : line.getOffset(offset));
         }
+
+        StringBuilder input = new StringBuilder();
+        for (int i = offset; i < offset + length; i++) {
+            if (i > offset) {
+                input.append(' ');
+            }
+            input.append(tokens[i]);
+        }
+        return plan.parse(input.toString(), 0);
     }
 
-    private CallResult executeAll(CommandSender sender, String identifier, String[] arguments, List<Command> currentCommands) {
-        int argumentsNr = arguments.length;
+    /**
+     * Executes the commands which match the identifier. The arguments are the tokens from offset to offset + length,
+     * the token array is shared across all levels of the command tree and never copied.
+     * The lists of failed commands are only created if a command fails, so a successful call allocates nothing here.
+     * The line is the parsed input of the tokens if there is one, commands with a {@link ParsePlan} parse its raw text.
+     */
+    private CallResult dispatch(CommandSender sender, String identifier, String[] tokens, int offset, int length, CommandLine line, CompiledCommand[] candidates, Completion completion) {
+        int argumentsNr = length;
 
         CallResult result = CallResult.NOT_FOUND;
 
-        List<Command> helpCommands = new LinkedList<Command>(), permCommands = new LinkedList<Command>();
+        List<Command> helpCommands = null, permCommands = null;
+        List<CallInformation> invalidCalls = null;
+        List<CompiledCommand> limitedCommands = null;
+        CallInformationPool.Frames frames = null;
 
-        for (Command command : currentCommands) {
-            if (command.isIdentifier(identifier)) {
+        for (CompiledCommand node : candidates) {
+            if (ignoreCase || node.isIdentifier(identifier)) {
+                Command command = node.command;
 
                 CallResult subResult = null;
                 if (argumentsNr > 0) {
-                    subResult = executeAll(sender, arguments[0], removeUntil(arguments, 1), command.getSubCommands());
+                    String subIdentifier = tokens[offset];
+                    subResult = dispatch(sender, subIdentifier, tokens, offset + 1, length - 1, line, node.getChildren().get(subIdentifier), completion);
                 }
 
-                if (command.isInfinite() || argumentsNr < command.getMinArguments() || argumentsNr > command.getMaxArguments()) {
-                    //TODO check if argument type is ok
+                // a command with a plan checks the number of the parsed arguments instead of the tokens
+                int count = argumentsNr;
+                ParsePlan.Result parsed = null;
+                if (node.plan != null) {
+                    parsed = parse(node.plan, tokens, offset, length, line);
+                    count = parsed == null ? -1 : parsed.arguments.length;
+                }
+
+                if (node.infinite || count < node.minArguments || count > node.maxArguments) {
                     if (subResult != CallResult.SUCCESS) {
+                        if (helpCommands == null) {
+                            helpCommands = new ArrayList<Command>(1);
+                        }
                         helpCommands.add(command);
                         result = CallResult.DISPLAYED_COMMAND_HELP;
                         continue;
                     }
                 }
 
-                if (!command.hasPermission(sender)) {
+                if (!hasPermission(sender, node)) {
+                    if (permCommands == null) {
+                        permCommands = new ArrayList<Command>(1);
+                    }
                     permCommands.add(command);
                     result = CallResult.NO_PERMISSION;
                     continue;
                 }
 
-                CallInformation info = createCallInformation(command, sender, identifier, arguments);
-                onPreCommand(info);
-                command.execute(sender, info);
-                onPostCommand(info);
-                result = CallResult.SUCCESS;
+                CallInformation info = null;
+                boolean pooled = recycleCallInformation, acquired = false;
+                // the information escapes the call if it is executed later or kept for the failure callbacks
+                boolean detached = false;
+                try {
+                    if (pooled) {
+                        if (frames == null) {
+                            frames = callInformationPool.get();
+                        }
+                        // acquired inside the try, so the depth is released even if the creation fails
+                        info = frames.acquire();
+                        acquired = true;
+                        if (info == null) {
+                            info = createCallInformation(command, sender, identifier, tokens, offset, length);
+                        } else {
+                            info.reset(command, sender, identifier, tokens, offset, length);
+                        }
+                    } else {
+                        info = createCallInformation(command, sender, identifier, tokens, offset, length);
+                    }
+
+                    if (parsed != null) {
+                        info.setParsed(node.plan, parsed);
+                    }
+                    info.setBuffered(replyBuffering);
+
+                    if (node.typed && !info.parseArguments(node.arguments)) {
+                        // if a sub-command handled the line the arguments were not meant for this command
+                        if (subResult != CallResult.SUCCESS) {
+                            if (invalidCalls == null) {
+                                invalidCalls = new ArrayList<CallInformation>(1);
+                            }
+                            invalidCalls.add(info);
+                            detached = true;
+                            result = CallResult.INVALID_ARGUMENT;
+                        }
+                        continue;
+                    }
+
+                    // only calls which would be executed take a permit, so a typo does not start the cooldown
+                    if (node.rateLimiter != null && !node.rateLimiter.tryAcquire(sender)) {
+                        if (limitedCommands == null) {
+                            limitedCommands = new ArrayList<CompiledCommand>(1);
+                        }
+                        limitedCommands.add(node);
+                        result = CallResult.RATE_LIMITED;
+                        continue;
+                    }
+
+                    onPreCommand(info);
+                    if (node.async) {
+                        detached = true;
+                        CompletableFuture<Void> future = queues.submit(sender, new AsyncCall(node, info), getAsyncExecutor());
+                        if (completion != null) {
+                            completion.last = future;
+                        }
+                    } else if (node.cacheTtl > 0) {
+                        executeCached(node, info);
+                    } else {
+                        try {
+                            execute(node, info);
+                            onPostCommand(info);
+                        } finally {
+                            info.flush();
+                        }
+                    }
+                    result = CallResult.SUCCESS;
+                } finally {
+                    if (acquired) {
+                        frames.release(info, info == null || detached || info.isDetached());
+                    }
+                }
             }
         }
 
         if (result != CallResult.SUCCESS) {
-            for (Command cmd : helpCommands) {
-                onDisplayCommandHelp(sender, cmd);
+            if (helpCommands != null) {
+                for (Command cmd : helpCommands) {
+                    onDisplayCommandHelp(sender, cmd);
+                }
             }
-            for (Command cmd : permCommands) {
-                onPermissionFailed(sender, cmd);
+            if (permCommands != null) {
+                for (Command cmd : permCommands) {
+                    onPermissionFailed(sender, cmd);
+                }
+            }
+            if (invalidCalls != null) {
+                for (CallInformation info : invalidCalls) {
+                    int index = info.getInvalidArgument();
+                    onInvalidArgument(sender, info.getCommand(), info.getCommand().getArguments().get(index), info.getArgument(index));
+                }
+            }
+            if (limitedCommands != null) {
+                for (CompiledCommand node : limitedCommands) {
+                    long wait = node.rateLimiter.getWait(sender);
+                    onRateLimited(sender, node.command, TimeUnit.NANOSECONDS.toMillis(wait + TimeUnit.MILLISECONDS.toNanos(1) - 1));
+                }
             }
         }
 
         return result;
     }
 
-    private static enum CallResult {
-        SUCCESS,
-        NOT_FOUND,
-        DISPLAYED_COMMAND_HELP,
-        NO_PERMISSION
+    /**
+     * Executes a cacheable command. If the replies of a equal call are cached they are sent instead of executing the
+     * command, otherwise the replies are buffered and stored.
+     */
+    private void executeCached(CompiledCommand node, CallInformation info) {
+        ReplyCache cache = replyCache;
+        // the version and the epoch are read before the execution, so a change in between drops the replies
+        int version = node.command.getVersion(), epoch = permissionCache.getEpoch();
+        ReplyCache.Key key = createReplyKey(node, info);
+
+        try {
+            String[] cached = cache.get(key, version, epoch);
+            if (cached != null) {
+                for (String reply : cached) {
+                    info.reply(reply);
+                }
+                onPostCommand(info);
+                return;
+            }
+
+            boolean buffered = info.isBuffered();
+            info.setBuffered(true);
+            execute(node, info);
+            String[] replies = info.getReplies();
+            if (replies.length != 0) {
+                cache.put(key, replies, node.cacheTtl, version, epoch);
+            }
+
+            if (!buffered) {
+                info.flush();
+                info.setBuffered(false);
+            }
+            onPostCommand(info);
+        } finally {
+            info.flush();
+        }
+    }
+
+    /**
+     * The arguments are normalized, so integer arguments with a different notation share their replies
+     */
+    private ReplyCache.Key createReplyKey(CompiledCommand node, CallInformation info) {
+        StringBuilder arguments = new StringBuilder();
+        int length = info.getArgumentsLength();
+
+        for (int i = 0; i < length; i++) {
+            if (i > 0) {
+                arguments.append(' ');
+            }
+            if (node.typed && i < node.arguments.length && node.arguments[i].isInteger()) {
+                arguments.append(info.getLong(i));
+            } else {
+                arguments.append(info.getArgument(i));
+            }
+        }
+
+        Object owner = getPermissionProfile(info.getSender());
+        return new ReplyCache.Key(node.command, arguments.toString(), owner == null ? info.getSender() : owner);
+    }
+
+    private boolean hasPermission(CommandSender sender, CompiledCommand node) {
+        if (permissionCaching) {
+            return permissionCache.hasPermission(sender, node);
+        }
+        return node.hasPermission(sender);
+    }
+
+    private void execute(CompiledCommand node, CallInformation info) {
+        if (!metricsEnabled) {
+            executeHandlers(node, info);
+            return;
+        }
+
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            executeHandlers(node, info);
+            failed = false;
+        } finally {
+            metrics.recordCommand(node, System.nanoTime() - start, failed);
+        }
+    }
+
+    private static void executeHandlers(CompiledCommand node, CallInformation info) {
+        CommandSender sender = info.getSender();
+        for (Command handler : node.handlers) {
+            handler.execute(sender, info);
+        }
+    }
+
+    /**
+     * Executes a asynchronous command on the async executor
+     */
+    private final class AsyncCall implements Runnable {
+        private final CompiledCommand node;
+        private final CallInformation info;
+
+        AsyncCall(CompiledCommand node, CallInformation info) {
+            this.node = node;
+            this.info = info;
+        }
+
+        @Override
+        public void run() {
+            try {
+                try {
+                    execute(node, info);
+                    onPostCommand(info);
+                } finally {
+                    info.flush();
+                }
+            } catch (RuntimeException e) {
+                onAsyncCommandFailed(info, e);
+                throw e;
+            } catch (Error e) {
+                onAsyncCommandFailed(info, e);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Tracks the last asynchronous command of a dispatch
+     */
+    private static final class Completion {
+        CompletableFuture<Void> last;
     }
 
 
     protected CallInformation createCallInformation(Command command, CommandSender sender, String identifier, String... arguments) {
-        return new CallInformation(this, command, sender, identifier, arguments);
+        return createCallInformation(command, sender, identifier, arguments, 0, arguments.length);
+    }
+
+    /**
+     * Creates the information for a call whose arguments are a slice of a token array.
+     *
+     * @param command    The called command
+     * @param sender     The sender
+     * @param identifier The identifier which was used
+     * @param tokens     The token array, which must not be modified
+     * @param offset     The index of the first argument in the token array
+     * @param length     The number of arguments
+     * @return The information about the call
+     */
+    protected CallInformation createCallInformation(Command command, CommandSender sender, String identifier, String[] tokens, int offset, int length) {
+        return new CallInformation(this, command, sender, identifier, tokens, offset, length);
+    }
+
+
+    //================================================================================
+    // Ticks
+    //================================================================================
+
+    final void schedule(CallInformation information, CommandTask task) {
+        scheduler.schedule(information, task);
+    }
+
+    /**
+     * Runs the scheduled {@link CommandTask}s until they are done or the tick budget is used up. The tasks continue
+     * on the next tick, so this should be called once per tick of the host. Only one thread can run a tick at a time.
+     *
+     * @return The number of tasks which are not done yet, including the tasks which have not been started yet
+     * @see CallInformation#schedule(CommandTask)
+     */
+    public int tick() {
+        return scheduler.tick(tickBudget);
+    }
+
+    /**
+     * Sets the time the scheduled tasks may take per tick
+     *
+     * @param budget The budget
+     * @param unit   The unit of the budget
+     */
+    public void setTickBudget(long budget, TimeUnit unit) {
+        if (budget < 0) {
+            throw new IllegalArgumentException("The budget must not be negative!");
+        }
+        this.tickBudget = unit.toNanos(budget);
+    }
+
+    /**
+     * @return The budget per tick in nanoseconds
+     */
+    public long getTickBudget() {
+        return tickBudget;
     }
 
 
@@ -116,6 +552,64 @@ public abstract class CommandExecutor {
 
     public abstract void onPermissionFailed(CommandSender sender, Command command);
 
+    /**
+     * Gets called if no command has been found. By default this calls {@link #onCommandNotFound(CommandSender)}.
+     *
+     * @param sender      The sender
+     * @param identifier  The identifier which has not been found
+     * @param suggestions The closest commands the sender has permission for, the best match first
+     */
+    public void onCommandNotFound(CommandSender sender, String identifier, List<Command> suggestions) {
+        onCommandNotFound(sender);
+    }
+
+    /**
+     * Gets called if a argument can not be parsed as the declared integer or decimal. By default this calls
+     * {@link #onDisplayCommandHelp(CommandSender, Command)}.
+     *
+     * @param sender   The sender
+     * @param command  The command
+     * @param argument The declared argument
+     * @param value    The value which has been passed
+     */
+    public void onInvalidArgument(CommandSender sender, Command command, Argument argument, String value) {
+        onDisplayCommandHelp(sender, command);
+    }
+
+    /**
+     * Gets called on the worker thread if a asynchronous command failed, or during {@link #tick()} if a scheduled
+     * task failed. By default the exception is passed to the uncaught exception handler of the current thread.
+     *
+     * @param info  The information about the failed call
+     * @param cause The exception
+     */
+    public void onAsyncCommandFailed(CallInformation info, Throwable cause) {
+        Thread thread = Thread.currentThread();
+        thread.getUncaughtExceptionHandler().uncaughtException(thread, cause);
+    }
+
+    /**
+     * Gets called if a sender called a command more often than its {@link RateLimit} allows. By default nothing
+     * happens.
+     *
+     * @param sender     The sender
+     * @param command    The command
+     * @param retryAfter The time in milliseconds after which the sender may call the command again
+     */
+    public void onRateLimited(CommandSender sender, Command command, long retryAfter) {
+    }
+
+    /**
+     * Gets called during {@link #tick()} if the steps of the scheduled tasks took longer than the budget of the tick
+     * together. The remaining tasks continue on the next tick. If this is called for the same task on every tick, it
+     * should do less work per step.
+     *
+     * @param info  The information about the call which scheduled the task whose step used up the budget
+     * @param nanos The time the whole tick took in nanoseconds
+     */
+    public void onTickBudgetExceeded(CallInformation info, long nanos) {
+    }
+
 
     //================================================================================
     // Command registration
@@ -131,46 +625,164 @@ public abstract class CommandExecutor {
     }
 
     public Command build(Object instance, String name) {
-        return findCommand(instance, name, instance.getClass().getDeclaredMethods());
+        return findCommand(instance, instance.getClass(), name);
     }
 
     public Command build(Class clazz, String name) {
-        return findCommand(null, name, clazz.getDeclaredMethods());
+        return findCommand(null, clazz, name);
     }
 
     public Command register(Command command) {
-        if (!commands.contains(command)) {
-            command.check();
-            commands.add(command);
+        command.check();
+        synchronized (commands) {
+            if (registered.add(command)) {
+                commands.add(command);
+                command.track(modifications);
+                published();
+            }
         }
 
         return command;
     }
 
+    /**
+     * Unregisters a command
+     *
+     * @param command The command
+     * @return Whether the command has been registered
+     */
+    public boolean unregister(Command command) {
+        return replace(Collections.singletonList(command), Collections.<Command>emptyList());
+    }
+
+    /**
+     * Replaces a registered command by another one at the same position
+     *
+     * @param command     The registered command
+     * @param replacement The new command
+     * @return Whether the command has been registered and got replaced
+     */
+    public boolean replace(Command command, Command replacement) {
+        replacement.check();
+        synchronized (commands) {
+            if (!registered.contains(command)) {
+                return false;
+            }
+            int index = commands.indexOf(command);
+
+            registered.remove(command);
+            if (registered.add(replacement)) {
+                commands.set(index, replacement);
+                replacement.track(modifications);
+            } else {
+                // the replacement is already registered somewhere else
+                commands.remove(index);
+            }
+            published();
+            return true;
+        }
+    }
+
+    /**
+     * Unregisters some commands and registers others at once, for example to reload a module. A dispatch either sees
+     * all of the old or all of the new commands.
+     *
+     * @param commands     The registered commands to remove
+     * @param replacements The commands to register
+     * @return Whether any of the commands to remove has been registered and got removed, this does not tell whether
+     * the replacements have been registered
+     */
+    public boolean replace(Collection<? extends Command> commands, Collection<? extends Command> replacements) {
+        for (Command replacement : replacements) {
+            replacement.check();
+        }
+
+        synchronized (this.commands) {
+            Set<Command> removed = new HashSet<Command>();
+            for (Command command : commands) {
+                if (registered.remove(command)) {
+                    removed.add(command);
+                }
+            }
+
+            if (!removed.isEmpty()) {
+                // the list is compacted once instead of searching it for every removed command
+                int size = 0;
+                for (int i = 0; i < this.commands.size(); i++) {
+                    Command command = this.commands.get(i);
+                    if (!removed.contains(command)) {
+                        this.commands.set(size++, command);
+                    }
+                }
+                this.commands.subList(size, this.commands.size()).clear();
+            }
+
+            boolean added = false;
+
+            for (Command replacement : replacements) {
+                if (registered.add(replacement)) {
+                    this.commands.add(replacement);
+                    replacement.track(modifications);
+                    added = true;
+                }
+            }
+
+            if (!removed.isEmpty() || added) {
+                published();
+            }
+            return !removed.isEmpty();
+        }
+    }
+
+    /**
+     * Publishes the changes of the registered commands, the lock of the list has to be held
+     */
+    private void published() {
+        snapshot = null;
+        modifications.incrementAndGet();
+    }
+
+    /**
+     * @return The current snapshot of the registered commands
+     */
+    private Command[] getSnapshot() {
+        Command[] current = snapshot;
+        if (current == null) {
+            synchronized (commands) {
+                current = snapshot;
+                if (current == null) {
+                    current = commands.toArray(new Command[commands.size()]);
+                    snapshot = current;
+                }
+            }
+        }
+        return current;
+    }
+
 
     public Command register(Object instance) {
-        return register(instance, null, instance.getClass().getDeclaredMethods());
+        return register(instance, instance.getClass(), null);
     }
 
 
     public Command register(Class clazz) {
-        return register(null, null, clazz.getDeclaredMethods());
+        return register(null, clazz, null);
     }
 
 
     public Command register(Object instance, String name) {
-        return register(instance, name, instance.getClass().getDeclaredMethods());
+        return register(instance, instance.getClass(), name);
     }
 
 
     public Command register(Class clazz, String name) {
-        return register(null, name, clazz.getDeclaredMethods());
+        return register(null, clazz, name);
     }
 
-    private Command register(Object instance, String name, Method... methods) {
-        Command cmd = findCommand(instance, name, methods);
+    private Command register(Object instance, Class<?> clazz, String name) {
+        Command cmd = findCommand(instance, clazz, name);
         if (cmd == null) {
-            throw new CommandException(cmd, "Command not found in the class %s!", instance.getClass().getName());
+            throw new CommandException(cmd, "Command not found in the class %s!", clazz.getName());
         }
 
         register(cmd);
@@ -178,31 +790,470 @@ public abstract class CommandExecutor {
         return cmd;
     }
 
-    private Command findCommand(Object instance, String name, Method... methods) {
-        for (Method method : methods) {
-            CommandHandler annotation = getAnnotation(method);
+    /**
+     * Creates the command of a {@link CommandHandler} together with the handlers which are its aliases
+     */
+    private Command findCommand(Object instance, Class<?> clazz, String name) {
+        HandlerClass handlers = HandlerClass.of(clazz);
+        int index = name == null ? (handlers.size() == 0 ? -1 : 0) : handlers.indexOf(name);
+        if (index == -1) {
+            return null;
+        }
 
-            if (annotation != null) {
-                if (name != null && !annotation.name().equals(name)) {
-                    continue;
-                }
+        return createCommand(handlers, instance, index, new HashMap<String, Command>());
+    }
 
-                return createCommand(method, instance, annotation);
+    /**
+     * Registers all {@link CommandHandler}s of the instance. Handlers which are aliases of another handler are
+     * registered as well, and share the command with it.
+     *
+     * @param instance The instance which declares the handlers
+     * @return The registered commands in the order they are declared
+     */
+    public List<Command> registerAll(Object instance) {
+        return registerAll(instance, instance.getClass());
+    }
+
+    /**
+     * Registers all static {@link CommandHandler}s of the class
+     *
+     * @param clazz The class which declares the handlers
+     * @return The registered commands in the order they are declared
+     * @see #registerAll(Object)
+     */
+    public List<Command> registerAll(Class clazz) {
+        return registerAll(null, clazz);
+    }
+
+    private List<Command> registerAll(Object instance, Class<?> clazz) {
+        HandlerClass handlers = HandlerClass.of(clazz);
+        Map<String, Command> created = new HashMap<String, Command>();
+        List<Command> registered = new ArrayList<Command>(handlers.size());
+
+        // a dispatch sees all handlers of the class at once
+        synchronized (commands) {
+            for (int i = 0; i < handlers.size(); i++) {
+                registered.add(register(createCommand(handlers, instance, i, created)));
             }
         }
 
-        return null;
+        return registered;
+    }
+
+    /**
+     * Creates the command of a handler. Every handler is only created once per call, so handlers which are aliases
+     * of each other get the same commands.
+     */
+    private Command createCommand(HandlerClass handlers, Object instance, int index, Map<String, Command> created) {
+        HandlerDefinition definition = handlers.getDefinition(index);
+        Command command = created.get(definition.getName());
+        if (command != null) {
+            return command;
+        }
+
+        command = createCommand(definition, handlers.createInvoker(index, instance));
+        created.put(definition.getName(), command);
+
+        for (String permission : definition.getPermissions()) {
+            command.addPermission(permission);
+        }
+
+        for (String alias : definition.getAliases()) {
+            int aliasIndex = handlers.indexOf(alias);
+            if (aliasIndex == -1) {
+                throw new CommandException(command, "The alias %s of the command %s is not a handler of the class!", alias, definition.getName());
+            }
+            command.addAlias(createCommand(handlers, instance, aliasIndex, created));
+        }
+
+        return command;
     }
 
     public final boolean isRegistered(Command command) {
-        return commands.contains(command);
+        synchronized (commands) {
+            return registered.contains(command);
+        }
     }
 
 
+    /**
+     * Gets all registered commands. Use {@link #register(Command)}, {@link #unregister(Command)} and
+     * {@link #replace(Command, Command)} to modify them.
+     *
+     * @return A unmodifiable snapshot of the registered commands
+     */
     public final List<Command> getCommands() {
-        return commands;
+        return Collections.unmodifiableList(Arrays.asList(getSnapshot()));
+    }
+
+    /**
+     * Sets whether identifiers should be matched case-insensitive. The identifiers are indexed in lower case anyway,
+     * so this does not affect the lookup costs.
+     *
+     * @param ignoreCase Whether to ignore the case of identifiers
+     */
+    public void setIgnoreCase(boolean ignoreCase) {
+        this.ignoreCase = ignoreCase;
+    }
+
+    public boolean isIgnoreCase() {
+        return ignoreCase;
+    }
+
+
+    /**
+     * Compiles the registered commands into the graph which is used for the dispatch. This happens automatically
+     * before the next dispatch if a command has been modified, so calling this is only needed to avoid the delay.
+     */
+    public void compile() {
+        graph = compileGraph();
+    }
+
+    final CommandGraph getGraph() {
+        CommandGraph current = graph;
+        if (current == null || current.isOutdated()) {
+            current = compileGraph();
+            graph = current;
+        }
+        return current;
+    }
+
+    private CommandGraph compileGraph() {
+        // the modifications are read before the snapshot, so a change in between recompiles the graph again
+        int modifications = this.modifications.get(), sharedModifications = Command.getSharedModifications();
+        CommandGraph graph = CommandGraph.compile(Arrays.asList(getSnapshot()), this.modifications, modifications, sharedModifications);
+        metrics.retain(graph);
+        return graph;
+    }
+
+
+    /**
+     * Completes the last token of a partial command line. Identifiers of commands and sub-commands are completed if
+     * the sender has permission for them, arguments are completed by their {@link CompletionProvider}.
+     *
+     * @param sender       The sender
+     * @param partialInput The command line typed so far, if it ends with whitespace a new token is completed
+     * @return The sorted completions of the last token
+     */
+    public List<String> complete(CommandSender sender, String partialInput) {
+        CommandLine line = CommandLine.parse(partialInput);
+        boolean newToken = line.isEmpty() || Character.isWhitespace(partialInput.charAt(partialInput.length() - 1));
+        int finished = newToken ? line.size() : line.size() - 1;
+        String prefix = newToken ? "" : line.getToken(finished);
+
+        CommandIndex root = getGraph().getRoot();
+        Set<String> completions = new TreeSet<String>();
+
+        if (finished == 0) {
+            completeIdentifiers(sender, root, prefix, completions);
+            return new ArrayList<String>(completions);
+        }
+
+        // the commands the finished tokens can lead to and the index of the argument which is being typed
+        List<CompiledCommand> nodes = new ArrayList<CompiledCommand>();
+        List<Integer> positions = new ArrayList<Integer>();
+
+        String[] tokens = line.getTokens();
+        for (CompiledCommand node : root.get(tokens[0])) {
+            if ((ignoreCase || node.isIdentifier(tokens[0])) && hasPermission(sender, node)) {
+                nodes.add(node);
+                positions.add(0);
+            }
+        }
+
+        for (int i = 1; i < finished && !nodes.isEmpty(); i++) {
+            List<CompiledCommand> nextNodes = new ArrayList<CompiledCommand>();
+            List<Integer> nextPositions = new ArrayList<Integer>();
+
+            for (int j = 0; j < nodes.size(); j++) {
+                CompiledCommand node = nodes.get(j);
+                int position = positions.get(j);
+
+                if (position == 0) {
+                    for (CompiledCommand child : node.getChildren().get(tokens[i])) {
+                        if ((ignoreCase || child.isIdentifier(tokens[i])) && hasPermission(sender, child)) {
+                            nextNodes.add(child);
+                            nextPositions.add(0);
+                        }
+                    }
+                }
+
+                if (node.infinite || position + 1 < node.maxArguments) {
+                    nextNodes.add(node);
+                    nextPositions.add(position + 1);
+                }
+            }
+
+            nodes = nextNodes;
+            positions = nextPositions;
+        }
+
+        for (int i = 0; i < nodes.size(); i++) {
+            CompiledCommand node = nodes.get(i);
+            int position = positions.get(i);
+
+            if (position == 0) {
+                completeIdentifiers(sender, node.getChildren(), prefix, completions);
+            }
+
+            if (position < node.arguments.length) {
+                CompletionProvider provider = node.arguments[position].getCompletionProvider();
+                if (provider != null) {
+                    completions.addAll(provider.complete(sender, prefix));
+                }
+            }
+        }
+
+        return new ArrayList<String>(completions);
+    }
+
+    private void completeIdentifiers(CommandSender sender, CommandIndex index, String prefix, Set<String> completions) {
+        for (PrefixTrie.Entry entry : index.complete(prefix)) {
+            if ((ignoreCase || entry.identifier.startsWith(prefix)) && hasPermission(sender, entry.command)) {
+                completions.add(entry.identifier);
+            }
+        }
+    }
+
+    /**
+     * Finds the closest commands to a identifier which has not been found
+     *
+     * @param sender     The sender, only commands the sender has permission for are returned
+     * @param identifier The identifier
+     * @return At most {@link #getMaxSuggestions()} commands, the best match first
+     */
+    public List<Command> getSuggestions(CommandSender sender, String identifier) {
+        if (maxSuggestions <= 0) {
+            return Collections.emptyList();
+        }
+
+        List<Command> suggestions = new ArrayList<Command>(maxSuggestions);
+
+        for (SuggestionIndex.Match match : getGraph().getSuggestions().find(identifier, maxSuggestionDistance)) {
+            for (CompiledCommand node : match.getCommands()) {
+                if (suggestions.size() >= maxSuggestions) {
+                    return suggestions;
+                }
+
+                if (hasPermission(sender, node) && !suggestions.contains(node.command)) {
+                    suggestions.add(node.command);
+                }
+            }
+        }
+
+        return suggestions;
+    }
+
+    /**
+     * Sets the maximal number of suggestions if a command has not been found, 0 disables suggestions
+     *
+     * @param maxSuggestions The maximal number of suggestions
+     */
+    public void setMaxSuggestions(int maxSuggestions) {
+        this.maxSuggestions = maxSuggestions;
+    }
+
+    public int getMaxSuggestions() {
+        return maxSuggestions;
+    }
+
+    /**
+     * Sets the maximal edit distance between a unknown identifier and a suggested one
+     *
+     * @param maxSuggestionDistance The maximal edit distance
+     */
+    public void setMaxSuggestionDistance(int maxSuggestionDistance) {
+        this.maxSuggestionDistance = maxSuggestionDistance;
+    }
+
+    public int getMaxSuggestionDistance() {
+        return maxSuggestionDistance;
+    }
+
+    /**
+     * Sets whether the permission decisions should be cached per sender and command. If this is enabled
+     * {@link #invalidatePermissions()} or {@link #invalidatePermissions(CommandSender)} must be called if permissions
+     * change.
+     *
+     * @param permissionCaching Whether permission decisions should be cached
+     */
+    public void setPermissionCaching(boolean permissionCaching) {
+        this.permissionCaching = permissionCaching;
+        permissionCache.invalidate();
+    }
+
+    public boolean isPermissionCaching() {
+        return permissionCaching;
+    }
+
+    /**
+     * Sets whether the {@link CallInformation} of synchronous calls gets reused. Every thread keeps one instance per
+     * nesting depth of the dispatch, so a successful call does not allocate a new one.
+     * <p>
+     * If enabled, a {@link CallInformation} is only valid until {@link #onPostCommand(CallInformation)} returned and
+     * must not be stored by handlers or listeners. Asynchronous calls and calls passed to
+     * {@link #onInvalidArgument(CommandSender, Command, Argument, String)} always get their own instance.
+     *
+     * @param recycleCallInformation Whether to reuse the information
+     */
+    public void setRecycleCallInformation(boolean recycleCallInformation) {
+        this.recycleCallInformation = recycleCallInformation;
+    }
+
+    public boolean isRecycleCallInformation() {
+        return recycleCallInformation;
+    }
+
+    /**
+     * Sets whether the outcomes of the dispatches and the execution times of the commands are recorded. If disabled
+     * the dispatch only checks this flag.
+     *
+     * @param metricsEnabled Whether to record metrics
+     * @see #getMetrics()
+     */
+    public void setMetricsEnabled(boolean metricsEnabled) {
+        this.metricsEnabled = metricsEnabled;
+    }
+
+    public boolean isMetricsEnabled() {
+        return metricsEnabled;
+    }
+
+    /**
+     * Sets whether the replies of a command are collected and sent at once with
+     * {@link CommandSender#sendMessages(java.util.List)} after {@link #onPostCommand(CallInformation)}. Only
+     * {@link CallInformation#reply(String)} is buffered, messages which are sent to the sender directly are not.
+     *
+     * @param replyBuffering Whether to buffer the replies
+     */
+    public void setReplyBuffering(boolean replyBuffering) {
+        this.replyBuffering = replyBuffering;
+    }
+
+    public boolean isReplyBuffering() {
+        return replyBuffering;
+    }
+
+    /**
+     * Sets how many replies of cacheable commands are kept at most. The cached replies are dropped.
+     *
+     * @param maxEntries The number of cached calls
+     * @see Command#setCacheable(long, TimeUnit)
+     */
+    public void setReplyCacheSize(int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("The size must be at least 1!");
+        }
+        this.replyCache = new ReplyCache(maxEntries);
+    }
+
+    /**
+     * Drops all cached replies. They are dropped automatically if a command is modified or the permissions are
+     * invalidated.
+     */
+    public void invalidateReplies() {
+        replyCache.invalidate();
+    }
+
+    /**
+     * Drops the cached replies of a command, for example if the data it displays changed
+     *
+     * @param command The command
+     */
+    public void invalidateReplies(Command command) {
+        replyCache.invalidate(command);
+    }
+
+    /**
+     * Gets the metrics which have been recorded while they were enabled. The metrics of a command are dropped once it
+     * is not registered anymore.
+     *
+     * @return The metrics of this executor
+     */
+    public DispatchMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Discards all cached permission decisions, for example after the permissions have been reloaded
+     */
+    public void invalidatePermissions() {
+        permissionCache.invalidate();
+    }
+
+    /**
+     * Gets the permission epoch, which changes every time {@link #invalidatePermissions()} is called
+     *
+     * @return The permission epoch
+     */
+    public int getPermissionEpoch() {
+        return permissionCache.getEpoch();
     }
 
+    /**
+     * Gets the number of modifications of this executor. This changes whenever a command is registered or
+     * unregistered or a registered command or one of its sub-commands is modified, so data derived from the commands
+     * of this executor can be cached as long as it stays the same.
+     *
+     * @return The modification count
+     */
+    public int getModifications() {
+        // both counters only grow, so the sum changes whenever one of them does
+        return modifications.get() + Command.getSharedModifications();
+    }
+
+    /**
+     * Gets the permission profile of a sender. Senders with the same profile must have the same permissions and see
+     * the same help entries, so data like the visible help entries can be shared between them. The profile is
+     * used as a map key and is only valid until the next {@link #invalidatePermissions()}.
+     * <p>
+     * By default every sender has its own permissions, so this returns null.
+     *
+     * @param sender The sender
+     * @return The profile, for example the name of the permission group, or null
+     */
+    public Object getPermissionProfile(CommandSender sender) {
+        return null;
+    }
+
+    /**
+     * Discards the cached permission decisions of a sender, for example if the permissions of the sender changed or
+     * the sender left
+     *
+     * @param sender The sender
+     */
+    public void invalidatePermissions(CommandSender sender) {
+        permissionCache.invalidate(sender);
+    }
+
+    /**
+     * Sets the executor for asynchronous commands, for example a virtual thread per task executor
+     *
+     * @param asyncExecutor The executor
+     */
+    public void setAsyncExecutor(Executor asyncExecutor) {
+        this.asyncExecutor = asyncExecutor;
+    }
+
+    /**
+     * Gets the executor for asynchronous commands. If none has been set, a executor which uses virtual threads if
+     * available, otherwise a cached pool of daemon threads, gets created.
+     *
+     * @return The executor
+     */
+    public Executor getAsyncExecutor() {
+        Executor executor = asyncExecutor;
+        if (executor == null) {
+            synchronized (queues) {
+                executor = asyncExecutor;
+                if (executor == null) {
+                    executor = createDefaultAsyncExecutor();
+                    asyncExecutor = executor;
+                }
+            }
+        }
+        return executor;
+    }
 
     public void setDefaultElementsPerPage(int defaultElementsPerPage) {
         this.defaultElementsPerPage = defaultElementsPerPage;
@@ -217,22 +1268,32 @@ public abstract class CommandExecutor {
     //================================================================================
 
 
-    private CommandHandler getAnnotation(Method method) {
+    private Command createCommand(HandlerDefinition definition, HandlerInvoker invoker) {
+        return new AnnotatedCommand(definition.getName(), definition.getUsage(),
+                definition.getIdentifiers(),
+                createArguments(definition.getMaxArguments(), definition.getMinArguments(), definition.getArguments()),
+                definition.getMethodName(), invoker)
+                .setAsync(definition.isAsync())
+                .setRateLimit(definition.createRateLimit());
+    }
 
-        Class<?>[] parameterTypes = method.getParameterTypes();
-        if (parameterTypes.length != 2 || parameterTypes[0] != CommandSender.class || parameterTypes[1] != CallInformation.class) {
-            return null;
+    private static ExecutorService createDefaultAsyncExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (Exception ignored) {
+            // virtual threads are not available
         }
 
-        return method.getAnnotation(CommandHandler.class);
-    }
-
+        return Executors.newCachedThreadPool(new ThreadFactory() {
+            private final AtomicInteger threads = new AtomicInteger();
 
-    private Command createCommand(Method method, Object instance, CommandHandler annotation) {
-        return new AnnotatedCommand(annotation.name(), annotation.usage(),
-                annotation.identifiers(),
-                createArguments(annotation.maxArguments(), annotation.minArguments(), annotation.arguments()),
-                method, instance);
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "CommandLib-Async-" + threads.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
     }
 
 
@@ -287,16 +1348,7 @@ public abstract class CommandExecutor {
     }
 
 
-    private static String[] removeUntil(String[] original, int until) {
-        String[] newArray = new String[original.length - until];
-        System.arraycopy(original, until,       // from array[removeEnd]
-                newArray, 0,                    // to array[removeStart]
-                newArray.length);       // this number of elements
-        return newArray;
-    }
-
-
-    private static double fuzzyEqualsString(String a, String b) {
-        return 1.0 - (double) StringUtils.getLevenshteinDistance(a, b) / (a.length() >= b.length() ? a.length() : b.length());
+    static double fuzzyEqualsString(String a, String b, int distance) {
+        return 1.0 - (double) distance / (a.length() >= b.length() ? a.length() : b.length());
     }
 }
@@ -0,0 +1,124 @@
+package com.p000ison.dev.commandlib;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Represents a CommandGraph, the immutable dispatch graph compiled from the registered commands.
+ */
+final class CommandGraph {
+
+    /**
+     * The modification counter of the executor and its value when this graph has been compiled
+     */
+    private final AtomicInteger counter;
+    private final int modifications;
+    /**
+     * The modification count of the commands which are registered at more than one executor
+     */
+    private final int sharedModifications;
+    /**
+     * The following fields are set once while the graph is being compiled
+     */
+    private CommandIndex root;
+    private SuggestionIndex suggestions;
+    private List<CompiledCommand> commands;
+
+    private CommandGraph(AtomicInteger counter, int modifications, int sharedModifications) {
+        this.counter = counter;
+        this.modifications = modifications;
+        this.sharedModifications = sharedModifications;
+    }
+
+    /**
+     * Compiles the commands
+     *
+     * @param commands            The registered commands
+     * @param counter             The modification counter of the executor
+     * @param modifications       The modification count, read before the commands
+     * @param sharedModifications The modification count of the shared commands, read before the commands
+     * @return The graph
+     */
+    static CommandGraph compile(List<Command> commands, AtomicInteger counter, int modifications, int sharedModifications) {
+        CommandGraph graph = new CommandGraph(counter, modifications, sharedModifications);
+        Compiler compiler = new Compiler(graph);
+        graph.root = compiler.index(commands);
+
+        graph.suggestions = new SuggestionIndex();
+        for (Command command : commands) {
+            graph.suggestions.add(compiler.compile(command));
+        }
+
+        graph.commands = Collections.unmodifiableList(compiler.compiled);
+        return graph;
+    }
+
+    /**
+     * @return Whether a command of the executor has been modified since this graph has been compiled
+     */
+    boolean isOutdated() {
+        return modifications != counter.get() || sharedModifications != Command.getSharedModifications();
+    }
+
+    CommandIndex getRoot() {
+        return root;
+    }
+
+    /**
+     * @return The suggestion index over the identifiers of the root commands
+     */
+    SuggestionIndex getSuggestions() {
+        return suggestions;
+    }
+
+    /**
+     * @return All commands of the graph, ordered by their id
+     */
+    List<CompiledCommand> getCommands() {
+        return commands;
+    }
+
+    private static final class Compiler {
+        private final CommandGraph graph;
+        private final Map<Command, CompiledCommand> nodes = new IdentityHashMap<Command, CompiledCommand>();
+        private final List<CompiledCommand> compiled = new ArrayList<CompiledCommand>();
+
+        Compiler(CommandGraph graph) {
+            this.graph = graph;
+        }
+
+        CommandIndex index(List<Command> commands) {
+            if (commands.isEmpty()) {
+                return CommandIndex.EMPTY;
+            }
+
+            CommandIndex index = new CommandIndex();
+            for (Command command : commands) {
+                index.add(compile(command));
+            }
+            return index;
+        }
+
+        /**
+         * Compiles a command and its sub-commands. A command which is used multiple times in the tree is compiled
+         * only once, this also stops cycles.
+         */
+        CompiledCommand compile(Command command) {
+            CompiledCommand node = nodes.get(command);
+            if (node != null) {
+                return node;
+            }
+
+            node = new CompiledCommand(graph, command, compiled.size());
+            nodes.put(command, node);
+            compiled.add(node);
+
+            node.setChildren(index(command.getSubCommands()));
+            return node;
+        }
+    }
+}
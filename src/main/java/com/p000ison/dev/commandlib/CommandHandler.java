@@ -18,8 +18,16 @@ public @interface CommandHandler {
 
     String[] identifiers() default {};
 
+    /**
+     * The names of other handlers in the same class, which get executed together with this one
+     *
+     * @see Command#addAlias(Command)
+     */
     String[] aliases() default {};
 
+    /**
+     * @see Command#addPermission(String)
+     */
     String[] permissions() default {};
 
     int minArguments() default 0;
@@ -27,4 +35,28 @@ public @interface CommandHandler {
     int maxArguments() default 0;
 
     String[] arguments() default {};
+
+    /**
+     * @see Command#setAsync(boolean)
+     */
+    boolean async() default false;
+
+    /**
+     * The time in milliseconds a sender has to wait between two calls, or 0 for no cooldown
+     *
+     * @see Command#setCooldown(long, java.util.concurrent.TimeUnit)
+     */
+    long cooldown() default 0;
+
+    /**
+     * The calls per second a sender is allowed, or 0 for no limit. Overrides the {@link #cooldown()}.
+     *
+     * @see RateLimit#perSecond(double, int)
+     */
+    double rateLimit() default 0;
+
+    /**
+     * The number of calls a sender may use at once if there is a {@link #rateLimit()}
+     */
+    int burst() default 1;
 }
@@ -0,0 +1,29 @@
+package com.p000ison.dev.commandlib;
+
+/**
+ * Represents a CommandHandlerBinding, which gets generated by the
+ * {@link com.p000ison.dev.commandlib.processor.CommandHandlerProcessor} for every class with {@link CommandHandler}
+ * methods. It lists the handlers of the class and calls them directly, so registering the class needs no reflection.
+ * <p>
+ * The binding of a class <code>Foo</code> is named <code>Foo$$CommandHandlers</code> and is in the same package.
+ *
+ * @param <T> The class which declares the handlers
+ */
+public interface CommandHandlerBinding<T> {
+
+    /**
+     * @return The handlers in the order they are declared
+     */
+    HandlerDefinition[] getDefinitions();
+
+    /**
+     * Calls a handler
+     *
+     * @param handler     The index of the handler in {@link #getDefinitions()}
+     * @param instance    The instance, or null if the handler is static
+     * @param sender      The sender
+     * @param information The information about the call
+     * @throws Throwable Anything the handler method throws
+     */
+    void invoke(int handler, T instance, CommandSender sender, CallInformation information) throws Throwable;
+}
@@ -0,0 +1,79 @@
+package com.p000ison.dev.commandlib;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Represents a CommandIndex, which maps the identifiers of one level in the command tree to the commands.
+ * The identifiers are normalized to lower case once when a command is added, so a lookup costs a single hash lookup.
+ */
+final class CommandIndex {
+
+    private static final CompiledCommand[] NO_COMMANDS = new CompiledCommand[0];
+    /**
+     * The index of every command without sub-commands, nothing must be added to it
+     */
+    static final CommandIndex EMPTY = new CommandIndex();
+
+    private final Map<String, CompiledCommand[]> commands = new HashMap<String, CompiledCommand[]>();
+    private final PrefixTrie prefixes = new PrefixTrie();
+
+    /**
+     * Adds a command to this index. Commands which share an identifier are kept in the order they were added.
+     *
+     * @param command The command to add
+     */
+    void add(CompiledCommand command) {
+        for (String identifier : command.identifiers) {
+            String key = normalize(identifier);
+            CompiledCommand[] current = commands.get(key);
+
+            if (current == null) {
+                commands.put(key, new CompiledCommand[]{command});
+                prefixes.add(identifier, command);
+            } else if (!contains(current, command)) {
+                CompiledCommand[] extended = new CompiledCommand[current.length + 1];
+                System.arraycopy(current, 0, extended, 0, current.length);
+                extended[current.length] = command;
+                commands.put(key, extended);
+                prefixes.add(identifier, command);
+            }
+        }
+    }
+
+    /**
+     * Gets all commands which have a identifier which equals the given one, ignoring case.
+     * The caller has to check the exact identifier if the case matters.
+     *
+     * @param identifier The identifier to look up
+     * @return The matching commands, never null
+     */
+    CompiledCommand[] get(String identifier) {
+        CompiledCommand[] result = commands.get(normalize(identifier));
+        return result == null ? NO_COMMANDS : result;
+    }
+
+    /**
+     * Gets all identifiers which start with the prefix, ignoring case
+     *
+     * @param prefix The prefix
+     * @return The matching identifiers and their commands
+     */
+    PrefixTrie.Entry[] complete(String prefix) {
+        return prefixes.find(prefix);
+    }
+
+    static String normalize(String identifier) {
+        return identifier.toLowerCase(Locale.ENGLISH);
+    }
+
+    private static boolean contains(CompiledCommand[] commands, CompiledCommand command) {
+        for (CompiledCommand current : commands) {
+            if (current == command) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
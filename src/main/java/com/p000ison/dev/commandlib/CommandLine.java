@@ -0,0 +1,117 @@
+package com.p000ison.dev.commandlib;
+
+/**
+ * Represents a tokenized command line. The input is split at whitespace in a single pass, repeated whitespace is
+ * collapsed and the offset of every token in the original input is recorded.
+ */
+public final class CommandLine {
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private final String input;
+    private final String[] tokens;
+    private final int[] offsets;
+    private final int size;
+
+    private CommandLine(String input, String[] tokens, int[] offsets, int size) {
+        this.input = input;
+        this.tokens = tokens;
+        this.offsets = offsets;
+        this.size = size;
+    }
+
+    /**
+     * Tokenizes the given input
+     *
+     * @param input The input to split
+     * @return The tokenized command line
+     */
+    public static CommandLine parse(String input) {
+        String[] tokens = new String[INITIAL_CAPACITY];
+        int[] offsets = new int[INITIAL_CAPACITY];
+        int size = 0;
+
+        final int length = input.length();
+        int start = -1;
+
+        for (int i = 0; i <= length; i++) {
+            boolean separator = i == length || Character.isWhitespace(input.charAt(i));
+
+            if (separator) {
+                if (start != -1) {
+                    if (size == tokens.length) {
+                        String[] newTokens = new String[size << 1];
+                        System.arraycopy(tokens, 0, newTokens, 0, size);
+                        tokens = newTokens;
+                        int[] newOffsets = new int[size << 1];
+                        System.arraycopy(offsets, 0, newOffsets, 0, size);
+                        offsets = newOffsets;
+                    }
+
+                    tokens[size] = input.substring(start, i);
+                    offsets[size] = start;
+                    size++;
+                    start = -1;
+                }
+            } else if (start == -1) {
+                start = i;
+            }
+        }
+
+        return new CommandLine(input, tokens, offsets, size);
+    }
+
+    public String getInput() {
+        return input;
+    }
+
+    /**
+     * @return The number of tokens
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public String getToken(int index) {
+        checkIndex(index);
+        return tokens[index];
+    }
+
+    /**
+     * Gets the offset of a token in the original input
+     *
+     * @param index The index of the token
+     * @return The offset of the first character of the token
+     */
+    public int getOffset(int index) {
+        checkIndex(index);
+        return offsets[index];
+    }
+
+    /**
+     * Gets the backing token array. Only the first {@link #size()} elements are valid and it must not be modified.
+     *
+     * @return The backing token array
+     */
+    String[] getTokens() {
+        return tokens;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "CommandLine{" +
+                "input='" + input + '\'' +
+                ", size=" + size +
+                '}';
+    }
+}
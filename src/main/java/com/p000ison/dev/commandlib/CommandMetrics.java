@@ -0,0 +1,74 @@
+package com.p000ison.dev.commandlib;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Represents the CommandMetrics of a single command
+ */
+public final class CommandMetrics {
+
+    private final Command command;
+    private final LongAdder invocations = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+    /**
+     * Whether these metrics have been removed from the {@link DispatchMetrics}, so the compiled commands which still
+     * refer to them look them up again
+     */
+    private volatile boolean dropped;
+
+    CommandMetrics(Command command) {
+        this.command = command;
+    }
+
+    void record(long nanos, boolean failed) {
+        invocations.increment();
+        if (failed) {
+            failures.increment();
+        }
+        latency.record(nanos);
+    }
+
+    public Command getCommand() {
+        return command;
+    }
+
+    /**
+     * @return The number of executions of the command
+     */
+    public long getInvocations() {
+        return invocations.sum();
+    }
+
+    /**
+     * @return The number of executions which threw a exception
+     */
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    /**
+     * @return The time the handlers of the command took
+     */
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    void drop() {
+        dropped = true;
+    }
+
+    boolean isDropped() {
+        return dropped;
+    }
+
+    @Override
+    public String toString() {
+        return "CommandMetrics{" +
+                "command=" + command.getName() +
+                ", invocations=" + getInvocations() +
+                ", failures=" + getFailures() +
+                ", latency=" + latency +
+                '}';
+    }
+}
@@ -1,5 +1,7 @@
 package com.p000ison.dev.commandlib;
 
+import java.util.List;
+
 /**
  * Represents a CommandSender
  */
@@ -9,6 +11,18 @@ public interface CommandSender {
 
     void sendMessage(String message, final Object... args);
 
+    /**
+     * Sends several messages at once. By default they are sent one by one, senders which can send them in one write
+     * should override this. The list must not be kept after this returned.
+     *
+     * @param messages The messages in the order they should be sent
+     */
+    default void sendMessages(List<String> messages) {
+        for (int i = 0; i < messages.size(); i++) {
+            sendMessage(messages.get(i));
+        }
+    }
+
     boolean hasPermission(final Command cmd);
 
     boolean hasPermission(final String permission);
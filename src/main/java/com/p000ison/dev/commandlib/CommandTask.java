@@ -0,0 +1,19 @@
+package com.p000ison.dev.commandlib;
+
+/**
+ * Represents a CommandTask, which a command splits into small steps so it can be spread over several ticks.
+ *
+ * @see CallInformation#schedule(CommandTask)
+ * @see CommandExecutor#tick()
+ */
+public interface CommandTask {
+
+    /**
+     * Runs the next step of the task. A step should only do a small amount of work, the scheduler runs further steps
+     * as long as the budget of the tick allows it.
+     *
+     * @param information The information about the call which scheduled this task
+     * @return Whether the task is done
+     */
+    boolean step(CallInformation information);
+}
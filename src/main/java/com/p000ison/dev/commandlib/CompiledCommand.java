@@ -0,0 +1,139 @@
+package com.p000ison.dev.commandlib;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Represents a CompiledCommand, a frozen snapshot of a {@link Command} in a {@link CommandGraph}.
+ * All metadata needed for the dispatch is precomputed, so the dispatch only reads final fields.
+ */
+final class CompiledCommand {
+
+    /**
+     * The graph this command belongs to
+     */
+    final CommandGraph graph;
+    final Command command;
+    /**
+     * The index of this command in {@link CommandGraph#getCommands()}
+     */
+    final int id;
+    final String[] identifiers;
+    final Argument[] arguments;
+    final int minArguments, maxArguments;
+    /**
+     * Whether a argument has to be parsed as integer or decimal
+     */
+    final boolean typed;
+    /**
+     * The parser of the flags, quoted and greedy arguments, or null if the arguments are the tokens
+     */
+    final ParsePlan plan;
+    final boolean infinite;
+    final boolean async;
+    /**
+     * The limiter of the command, or null if it is not limited
+     */
+    final RateLimiter rateLimiter;
+    /**
+     * How long the replies are cached in nanoseconds, or 0 if they are not
+     */
+    final long cacheTtl;
+    final String[] permissions;
+    final boolean needAllPermissions;
+    /**
+     * The command itself followed by its call methods
+     */
+    final Command[] handlers;
+
+    /**
+     * The metrics of this command, looked up on the first execution while the metrics are enabled
+     */
+    volatile CommandMetrics metrics;
+
+    /**
+     * The sub-commands, which are set once while the graph is being compiled
+     */
+    private CommandIndex children;
+
+    CompiledCommand(CommandGraph graph, Command command, int id) {
+        this.graph = graph;
+        this.command = command;
+        this.id = id;
+        // the arrays of the command are never modified, so they are shared
+        this.identifiers = command.getIdentifiers();
+        this.arguments = command.getArgumentArray();
+        // the arity is derived from the same array, so it matches the arguments even if the command is modified now
+        this.minArguments = Command.getMinArguments(this.arguments);
+        this.typed = isTyped(this.arguments);
+        this.maxArguments = this.arguments.length;
+        this.plan = ParsePlan.compile(this.arguments, command.getFlags());
+        this.infinite = command.isInfinite();
+        this.async = command.isAsync();
+        this.rateLimiter = command.getRateLimiter();
+        this.cacheTtl = command.getCacheTtl(TimeUnit.NANOSECONDS);
+
+        this.permissions = command.getPermissionArray();
+        this.needAllPermissions = command.isNeedAllPermissions();
+
+        List<Command> callMethods = command.getCallMethods();
+        this.handlers = new Command[callMethods.size() + 1];
+        this.handlers[0] = command;
+        for (int i = 0; i < callMethods.size(); i++) {
+            this.handlers[i + 1] = callMethods.get(i);
+        }
+    }
+
+    private static boolean isTyped(Argument[] arguments) {
+        for (Argument argument : arguments) {
+            if (argument.isInteger() || argument.isDecimal()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    CommandIndex getChildren() {
+        return children;
+    }
+
+    void setChildren(CommandIndex children) {
+        this.children = children;
+    }
+
+    boolean isIdentifier(String identifier) {
+        for (String current : identifiers) {
+            if (identifier.equals(current)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    boolean hasPermission(CommandSender sender) {
+        if (permissions.length == 0) {
+            return true;
+        }
+
+        for (String permission : permissions) {
+            if (sender.hasPermission(permission)) {
+                if (!needAllPermissions) {
+                    return true;
+                }
+            } else if (needAllPermissions) {
+                return false;
+            }
+        }
+
+        return !needAllPermissions;
+    }
+
+    @Override
+    public String toString() {
+        return "CompiledCommand{" +
+                "command=" + command +
+                ", id=" + id +
+                '}';
+    }
+}
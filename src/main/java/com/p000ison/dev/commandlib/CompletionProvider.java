@@ -0,0 +1,18 @@
+package com.p000ison.dev.commandlib;
+
+import java.util.List;
+
+/**
+ * Represents a CompletionProvider, which completes the value of a {@link Argument}
+ */
+public interface CompletionProvider {
+
+    /**
+     * Completes a argument
+     *
+     * @param sender The sender who wants to complete the argument
+     * @param prefix The part of the argument which has been typed already, may be empty
+     * @return The possible values of the argument starting with the prefix
+     */
+    List<String> complete(CommandSender sender, String prefix);
+}
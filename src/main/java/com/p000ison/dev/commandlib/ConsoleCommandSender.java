@@ -1,5 +1,7 @@
 package com.p000ison.dev.commandlib;
 
+import java.util.List;
+
 /**
  * Represents a ConsoleCommandSender
  */
@@ -11,7 +13,23 @@ public class ConsoleCommandSender implements CommandSender {
 
     @Override
     public void sendMessage(String message, Object... args) {
-        System.out.printf(message, args);
+        System.out.print(MessageTemplate.of(message).format(args));
+    }
+
+    /**
+     * Prints all messages with a single write
+     */
+    @Override
+    public void sendMessages(List<String> messages) {
+        String separator = System.lineSeparator();
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < messages.size(); i++) {
+            if (i > 0) {
+                builder.append(separator);
+            }
+            builder.append(messages.get(i));
+        }
+        System.out.println(builder);
     }
 
     @Override
@@ -0,0 +1,173 @@
+package com.p000ison.dev.commandlib;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Represents the DispatchMetrics of a {@link CommandExecutor}. The counters are {@link LongAdder}s, so recording
+ * from many threads does not contend on a single value. The metrics of a command are kept as long as it is part of
+ * the compiled graph of the executor, so the metrics of unregistered commands are dropped.
+ *
+ * @see CommandExecutor#setMetricsEnabled(boolean)
+ */
+public final class DispatchMetrics {
+
+    private static final CallResult[] RESULTS = CallResult.values();
+
+    private final LongAdder[] outcomes = new LongAdder[RESULTS.length];
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final ConcurrentMap<Key, CommandMetrics> commands = new ConcurrentHashMap<Key, CommandMetrics>();
+
+    DispatchMetrics() {
+        for (int i = 0; i < outcomes.length; i++) {
+            outcomes[i] = new LongAdder();
+        }
+    }
+
+    void recordOutcome(CallResult result, long nanos) {
+        outcomes[result.ordinal()].increment();
+        latency.record(nanos);
+    }
+
+    void recordCommand(CompiledCommand node, long nanos, boolean failed) {
+        // the node remembers its metrics, so the map is only used on the first call after a recompile or a reset
+        CommandMetrics metrics = node.metrics;
+        if (metrics == null || metrics.isDropped()) {
+            Key key = new Key(node.command);
+            metrics = commands.get(key);
+            if (metrics == null) {
+                CommandMetrics created = new CommandMetrics(node.command);
+                metrics = commands.putIfAbsent(key, created);
+                if (metrics == null) {
+                    metrics = created;
+                }
+            }
+            node.metrics = metrics;
+        }
+        metrics.record(nanos, failed);
+    }
+
+    /**
+     * Drops the metrics of the commands which are not part of a graph anymore
+     *
+     * @param graph The new graph of the executor
+     */
+    void retain(CommandGraph graph) {
+        if (commands.isEmpty()) {
+            return;
+        }
+
+        Set<Command> compiled = Collections.newSetFromMap(new IdentityHashMap<Command, Boolean>());
+        for (CompiledCommand node : graph.getCommands()) {
+            compiled.add(node.command);
+        }
+
+        Iterator<CommandMetrics> iterator = commands.values().iterator();
+        while (iterator.hasNext()) {
+            CommandMetrics metrics = iterator.next();
+            if (!compiled.contains(metrics.getCommand())) {
+                iterator.remove();
+                metrics.drop();
+            }
+        }
+    }
+
+    /**
+     * Gets how often a dispatch of a command line ended with the given result
+     *
+     * @param result The result
+     * @return The number of dispatches
+     */
+    public long getOutcomes(CallResult result) {
+        return outcomes[result.ordinal()].sum();
+    }
+
+    /**
+     * @return The number of dispatched command lines
+     */
+    public long getDispatches() {
+        long sum = 0;
+        for (LongAdder outcome : outcomes) {
+            sum += outcome.sum();
+        }
+        return sum;
+    }
+
+    /**
+     * @return The time a whole dispatch took, including the callbacks
+     */
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    /**
+     * Gets the metrics of a command
+     *
+     * @param command The command
+     * @return The metrics, or null if the command has not been executed since the metrics are enabled
+     */
+    public CommandMetrics getCommandMetrics(Command command) {
+        return commands.get(new Key(command));
+    }
+
+    /**
+     * @return The metrics of all commands which have been executed, sorted by the number of invocations
+     */
+    public List<CommandMetrics> getCommandMetrics() {
+        List<CommandMetrics> metrics = new ArrayList<CommandMetrics>(commands.values());
+        Collections.sort(metrics, new Comparator<CommandMetrics>() {
+            @Override
+            public int compare(CommandMetrics o1, CommandMetrics o2) {
+                long a = o1.getInvocations(), b = o2.getInvocations();
+                return a < b ? 1 : (a == b ? 0 : -1);
+            }
+        });
+        return metrics;
+    }
+
+    /**
+     * Resets all metrics. Values which are recorded at the same time may get lost.
+     */
+    public void reset() {
+        for (LongAdder outcome : outcomes) {
+            outcome.reset();
+        }
+        latency.reset();
+
+        Iterator<CommandMetrics> iterator = commands.values().iterator();
+        while (iterator.hasNext()) {
+            CommandMetrics metrics = iterator.next();
+            iterator.remove();
+            metrics.drop();
+        }
+    }
+
+    /**
+     * Represents the Key of a command, commands which are equal but not the same get their own metrics
+     */
+    private static final class Key {
+        private final Command command;
+
+        Key(Command command) {
+            this.command = command;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return this == o || o instanceof Key && command == ((Key) o).command;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(command);
+        }
+    }
+}
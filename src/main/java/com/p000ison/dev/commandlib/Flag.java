@@ -0,0 +1,114 @@
+package com.p000ison.dev.commandlib;
+
+/**
+ * Represents a Flag, a option of a command which is typed as <code>-f</code> or <code>--flag</code>. A flag can be
+ * anywhere between the arguments. If it takes a value it is typed as <code>-f value</code>, <code>--flag value</code>
+ * or <code>--flag=value</code>, short flags without a value can be combined like <code>-abc</code>.
+ * <p>
+ * The short name must be a ASCII letter, so negative numbers are never mistaken for flags.
+ */
+public final class Flag {
+
+    /**
+     * The short name, or 0 if the flag has none
+     */
+    private final char shortName;
+    /**
+     * The long name, or null if the flag has none
+     */
+    private final String longName;
+    private final boolean valued;
+
+    private Flag(char shortName, String longName, boolean valued) {
+        if (shortName != 0 && !(shortName >= 'a' && shortName <= 'z' || shortName >= 'A' && shortName <= 'Z')) {
+            throw new IllegalArgumentException("The short name of a flag must be a letter!");
+        }
+        if (longName != null && !isValidName(longName)) {
+            throw new IllegalArgumentException("The long name of a flag must not be empty or contain spaces or a =!");
+        }
+        if (shortName == 0 && longName == null) {
+            throw new IllegalArgumentException("A flag needs a short or a long name!");
+        }
+        this.shortName = shortName;
+        this.longName = longName;
+        this.valued = valued;
+    }
+
+    private static boolean isValidName(String name) {
+        if (name.isEmpty() || name.charAt(0) == '-') {
+            return false;
+        }
+
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == '=' || Character.isWhitespace(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Creates a flag without a value
+     *
+     * @param shortName The short name, or 0 for none
+     * @param longName  The long name, or null for none
+     * @return The flag
+     */
+    public static Flag of(char shortName, String longName) {
+        return new Flag(shortName, longName, false);
+    }
+
+    public static Flag of(String longName) {
+        return of((char) 0, longName);
+    }
+
+    /**
+     * Creates a flag which takes a value
+     *
+     * @param shortName The short name, or 0 for none
+     * @param longName  The long name, or null for none
+     * @return The flag
+     */
+    public static Flag valued(char shortName, String longName) {
+        return new Flag(shortName, longName, true);
+    }
+
+    public static Flag valued(String longName) {
+        return valued((char) 0, longName);
+    }
+
+    /**
+     * @return The short name, or 0 if the flag has none
+     */
+    public char getShortName() {
+        return shortName;
+    }
+
+    /**
+     * @return The long name, or null if the flag has none
+     */
+    public String getLongName() {
+        return longName;
+    }
+
+    /**
+     * @return The long name, or the short name if the flag has no long name
+     */
+    public String getName() {
+        return longName != null ? longName : String.valueOf(shortName);
+    }
+
+    public boolean isValued() {
+        return valued;
+    }
+
+    @Override
+    public String toString() {
+        return "Flag{" +
+                "shortName=" + shortName +
+                ", longName='" + longName + '\'' +
+                ", valued=" + valued +
+                '}';
+    }
+}
@@ -0,0 +1,48 @@
+package com.p000ison.dev.commandlib;
+
+/**
+ * Looks up the generated {@link CommandHandlerBinding} of a class. The lookup is cached per class and does not keep
+ * the class loader of the class alive.
+ */
+final class HandlerBindings {
+
+    static final String SUFFIX = "$$CommandHandlers";
+
+    private static final ClassValue<CommandHandlerBinding<?>> BINDINGS = new ClassValue<CommandHandlerBinding<?>>() {
+        @Override
+        protected CommandHandlerBinding<?> computeValue(Class<?> type) {
+            ClassLoader loader = type.getClassLoader();
+            if (loader == null) {
+                return null;
+            }
+
+            try {
+                Class<?> binding = Class.forName(type.getName() + SUFFIX, true, loader);
+                if (!CommandHandlerBinding.class.isAssignableFrom(binding)) {
+                    return null;
+                }
+                return (CommandHandlerBinding<?>) binding.getConstructor().newInstance();
+            } catch (ClassNotFoundException e) {
+                return null;
+            } catch (ReflectiveOperationException e) {
+                throw new CommandException(null, e, "Failed to create the handlers of %s!", type.getName());
+            } catch (LinkageError e) {
+                return null;
+            }
+        }
+    };
+
+    private HandlerBindings() {
+    }
+
+    /**
+     * Gets the binding of a class
+     *
+     * @param clazz The class which declares the handlers
+     * @return The binding, or null if none has been generated
+     */
+    @SuppressWarnings("unchecked")
+    static CommandHandlerBinding<Object> get(Class<?> clazz) {
+        return (CommandHandlerBinding<Object>) BINDINGS.get(clazz);
+    }
+}
@@ -0,0 +1,113 @@
+package com.p000ison.dev.commandlib;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Represents the {@link CommandHandler}s of a class. They are looked up once per class, either from the generated
+ * {@link CommandHandlerBinding} or by reflection, and cached for all further builds. In both cases the handlers are
+ * ordered by the names of their methods, so the same handler is found whether the processor ran or not.
+ */
+final class HandlerClass {
+
+    /**
+     * The order of the handlers, the processor sorts them the same way. A handler takes fixed parameters, so the
+     * names of the handler methods of a class are unique.
+     */
+    private static final Comparator<Method> METHOD_ORDER = new Comparator<Method>() {
+        @Override
+        public int compare(Method o1, Method o2) {
+            return o1.getName().compareTo(o2.getName());
+        }
+    };
+
+    private static final ClassValue<HandlerClass> CLASSES = new ClassValue<HandlerClass>() {
+        @Override
+        protected HandlerClass computeValue(Class<?> type) {
+            CommandHandlerBinding<Object> binding = HandlerBindings.get(type);
+            if (binding != null) {
+                return new HandlerClass(binding.getDefinitions(), null, binding);
+            }
+
+            List<HandlerDefinition> definitions = new ArrayList<HandlerDefinition>();
+            List<Method> methods = new ArrayList<Method>();
+
+            // the order of getDeclaredMethods is unspecified
+            Method[] declared = type.getDeclaredMethods();
+            Arrays.sort(declared, METHOD_ORDER);
+
+            for (Method method : declared) {
+                CommandHandler annotation = getAnnotation(method);
+                if (annotation != null) {
+                    definitions.add(HandlerDefinition.of(method, annotation));
+                    methods.add(method);
+                }
+            }
+
+            return new HandlerClass(definitions.toArray(new HandlerDefinition[definitions.size()]),
+                    methods.toArray(new Method[methods.size()]), null);
+        }
+    };
+
+    private final HandlerDefinition[] definitions;
+    private final Method[] methods;
+    private final CommandHandlerBinding<Object> binding;
+    /**
+     * The index of the first handler with a name
+     */
+    private final Map<String, Integer> names = new HashMap<String, Integer>();
+
+    private HandlerClass(HandlerDefinition[] definitions, Method[] methods, CommandHandlerBinding<Object> binding) {
+        this.definitions = definitions;
+        this.methods = methods;
+        this.binding = binding;
+
+        for (int i = 0; i < definitions.length; i++) {
+            if (!names.containsKey(definitions[i].getName())) {
+                names.put(definitions[i].getName(), i);
+            }
+        }
+    }
+
+    static HandlerClass of(Class<?> clazz) {
+        return CLASSES.get(clazz);
+    }
+
+    int size() {
+        return definitions.length;
+    }
+
+    HandlerDefinition getDefinition(int handler) {
+        return definitions[handler];
+    }
+
+    /**
+     * @return The index of the first handler with the name, or -1 if there is none
+     */
+    int indexOf(String name) {
+        Integer index = names.get(name);
+        return index == null ? -1 : index;
+    }
+
+    HandlerInvoker createInvoker(int handler, Object instance) {
+        if (binding != null) {
+            return HandlerInvokers.createBound(binding, handler, instance);
+        }
+        return HandlerInvokers.create(methods[handler], instance);
+    }
+
+    private static CommandHandler getAnnotation(Method method) {
+
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        if (parameterTypes.length != 2 || parameterTypes[0] != CommandSender.class || parameterTypes[1] != CallInformation.class) {
+            return null;
+        }
+
+        return method.getAnnotation(CommandHandler.class);
+    }
+}
@@ -0,0 +1,119 @@
+package com.p000ison.dev.commandlib;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Represents a HandlerDefinition, the values of a {@link CommandHandler} annotation together with the name of the
+ * annotated method
+ */
+public final class HandlerDefinition {
+
+    private final String methodName;
+    private final String name;
+    private final String usage;
+    private final String[] identifiers;
+    private final String[] aliases;
+    private final String[] permissions;
+    private final int minArguments;
+    private final int maxArguments;
+    private final String[] arguments;
+    private final boolean async;
+    private final long cooldown;
+    private final double rateLimit;
+    private final int burst;
+
+    public HandlerDefinition(String methodName, String name, String usage, String[] identifiers, String[] aliases,
+                             String[] permissions, int minArguments, int maxArguments, String[] arguments, boolean async,
+                             long cooldown, double rateLimit, int burst) {
+        this.methodName = methodName;
+        this.name = name;
+        this.usage = usage;
+        this.identifiers = identifiers;
+        this.aliases = aliases;
+        this.permissions = permissions;
+        this.minArguments = minArguments;
+        this.maxArguments = maxArguments;
+        this.arguments = arguments;
+        this.async = async;
+        this.cooldown = cooldown;
+        this.rateLimit = rateLimit;
+        this.burst = burst;
+    }
+
+    static HandlerDefinition of(Method method, CommandHandler annotation) {
+        return new HandlerDefinition(method.getName(), annotation.name(), annotation.usage(), annotation.identifiers(),
+                annotation.aliases(), annotation.permissions(), annotation.minArguments(), annotation.maxArguments(),
+                annotation.arguments(), annotation.async(), annotation.cooldown(), annotation.rateLimit(), annotation.burst());
+    }
+
+    public String getMethodName() {
+        return methodName;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getUsage() {
+        return usage;
+    }
+
+    public String[] getIdentifiers() {
+        return identifiers.clone();
+    }
+
+    public String[] getAliases() {
+        return aliases.clone();
+    }
+
+    public String[] getPermissions() {
+        return permissions.clone();
+    }
+
+    public int getMinArguments() {
+        return minArguments;
+    }
+
+    public int getMaxArguments() {
+        return maxArguments;
+    }
+
+    public String[] getArguments() {
+        return arguments.clone();
+    }
+
+    public boolean isAsync() {
+        return async;
+    }
+
+    /**
+     * @return The cooldown in milliseconds, or 0
+     */
+    public long getCooldown() {
+        return cooldown;
+    }
+
+    /**
+     * @return The calls per second, or 0
+     */
+    public double getRateLimit() {
+        return rateLimit;
+    }
+
+    public int getBurst() {
+        return burst;
+    }
+
+    /**
+     * @return The rate limit of the handler, or null if it is not limited
+     */
+    RateLimit createRateLimit() {
+        if (rateLimit > 0) {
+            return RateLimit.perSecond(rateLimit, burst);
+        } else if (cooldown > 0) {
+            return RateLimit.cooldown(cooldown, TimeUnit.MILLISECONDS);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,16 @@
+package com.p000ison.dev.commandlib;
+
+/**
+ * Represents a HandlerInvoker, which calls the method of a {@link CommandHandler}
+ */
+interface HandlerInvoker {
+
+    /**
+     * Calls the handler method
+     *
+     * @param sender      The sender
+     * @param information The information about the call
+     * @throws Throwable Anything the handler method throws
+     */
+    void invoke(CommandSender sender, CallInformation information) throws Throwable;
+}
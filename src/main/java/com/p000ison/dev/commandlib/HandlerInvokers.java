@@ -0,0 +1,151 @@
+package com.p000ison.dev.commandlib;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Binds {@link CommandHandler} methods to {@link HandlerInvoker}s.
+ * <p>
+ * Accessible methods get a invoker generated by the {@link LambdaMetafactory}, which calls the method directly.
+ * Other methods are called through a {@link MethodHandle}, and if this is not possible either by reflection.
+ * Classes which have a generated {@link CommandHandlerBinding} do not need any of these.
+ */
+final class HandlerInvokers {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final MethodType INVOKE_TYPE = MethodType.methodType(void.class, CommandSender.class, CallInformation.class);
+
+    private HandlerInvokers() {
+    }
+
+    static HandlerInvoker create(Method method, Object instance) {
+        boolean isStatic = Modifier.isStatic(method.getModifiers());
+
+        if (!isStatic && instance == null) {
+            return createReflective(method, null);
+        }
+
+        if (isLinkable(method)) {
+            try {
+                return createGenerated(method, instance, isStatic);
+            } catch (Throwable ignored) {
+                // fall through to the method handle
+            }
+        }
+
+        try {
+            return createMethodHandle(method, instance, isStatic);
+        } catch (RuntimeException ignored) {
+        } catch (IllegalAccessException ignored) {
+        }
+
+        return createReflective(method, instance);
+    }
+
+    static HandlerInvoker createGenerated(Method method, Object instance, boolean isStatic) throws Throwable {
+        MethodType factoryType = isStatic ? MethodType.methodType(HandlerInvoker.class)
+                : MethodType.methodType(HandlerInvoker.class, method.getDeclaringClass());
+
+        CallSite site = LambdaMetafactory.metafactory(LOOKUP, "invoke", factoryType, INVOKE_TYPE,
+                LOOKUP.unreflect(method), INVOKE_TYPE);
+
+        return isStatic ? (HandlerInvoker) site.getTarget().invoke() : (HandlerInvoker) site.getTarget().invoke(instance);
+    }
+
+    static HandlerInvoker createMethodHandle(Method method, Object instance, boolean isStatic) throws IllegalAccessException {
+        method.setAccessible(true);
+        MethodHandle handle = LOOKUP.unreflect(method);
+
+        if (!isStatic) {
+            handle = handle.bindTo(instance);
+        }
+
+        return new MethodHandleInvoker(handle.asType(INVOKE_TYPE));
+    }
+
+    static HandlerInvoker createReflective(Method method, Object instance) {
+        return new ReflectiveInvoker(method, instance);
+    }
+
+    static HandlerInvoker createBound(CommandHandlerBinding<Object> binding, int handler, Object instance) {
+        return new BoundInvoker(binding, handler, instance);
+    }
+
+    /**
+     * The generated invoker refers to the class of the method directly, so the method and all its enclosing classes
+     * need to be public and the class must be visible from the class loader of this library.
+     */
+    private static boolean isLinkable(Method method) {
+        if (!Modifier.isPublic(method.getModifiers())) {
+            return false;
+        }
+
+        Class<?> clazz = method.getDeclaringClass();
+        for (Class<?> current = clazz; current != null; current = current.getEnclosingClass()) {
+            if (!Modifier.isPublic(current.getModifiers())) {
+                return false;
+            }
+        }
+
+        try {
+            return Class.forName(clazz.getName(), false, HandlerInvokers.class.getClassLoader()) == clazz;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    private static final class MethodHandleInvoker implements HandlerInvoker {
+        private final MethodHandle handle;
+
+        MethodHandleInvoker(MethodHandle handle) {
+            this.handle = handle;
+        }
+
+        @Override
+        public void invoke(CommandSender sender, CallInformation information) throws Throwable {
+            handle.invokeExact(sender, information);
+        }
+    }
+
+    private static final class BoundInvoker implements HandlerInvoker {
+        private final CommandHandlerBinding<Object> binding;
+        private final int handler;
+        private final Object instance;
+
+        BoundInvoker(CommandHandlerBinding<Object> binding, int handler, Object instance) {
+            this.binding = binding;
+            this.handler = handler;
+            this.instance = instance;
+        }
+
+        @Override
+        public void invoke(CommandSender sender, CallInformation information) throws Throwable {
+            binding.invoke(handler, instance, sender, information);
+        }
+    }
+
+    private static final class ReflectiveInvoker implements HandlerInvoker {
+        private final Method method;
+        private final Object instance;
+
+        ReflectiveInvoker(Method method, Object instance) {
+            this.method = method;
+            this.instance = instance;
+        }
+
+        @Override
+        public void invoke(CommandSender sender, CallInformation information) throws Throwable {
+            try {
+                method.invoke(instance, sender, information);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.p000ison.dev.commandlib;
+
+import com.p000ison.dev.commandlib.internal.LruCache;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.MissingFormatArgumentException;
+
+/**
+ * Represents a MessageTemplate, a pattern which is parsed once into literal text and arguments. It supports the
+ * specifiers <code>%s</code>, <code>%d</code>, <code>%n</code> and <code>%%</code> of {@link String#format(String, Object...)}.
+ * Patterns with any other specifier, for example <code>%5d</code>, are still rendered by {@link String#format(String, Object...)}.
+ */
+public final class MessageTemplate {
+
+    /**
+     * The number of cached templates, the least recently used ones are dropped
+     */
+    private static final int MAX_CACHED = 512;
+    /**
+     * Builders which grew larger than this are not reused
+     */
+    private static final int MAX_BUILDER_CAPACITY = 1024;
+
+    private static final LruCache<String, MessageTemplate> CACHE = new LruCache<String, MessageTemplate>(MAX_CACHED);
+
+    /**
+     * The reusable builder of every thread. It is removed while it is used, so rendering a argument which renders
+     * another template gets its own builder.
+     */
+    private static final ThreadLocal<StringBuilder[]> BUILDERS = new ThreadLocal<StringBuilder[]>() {
+        @Override
+        protected StringBuilder[] initialValue() {
+            return new StringBuilder[1];
+        }
+    };
+
+    private final String pattern;
+    /**
+     * The literal text before every argument, and the text after the last argument at the end
+     */
+    private final String[] literals;
+    private final int arguments;
+    /**
+     * Whether the argument at the index is a <code>%d</code>, or null if there is none
+     */
+    private final boolean[] integers;
+    /**
+     * Whether the pattern contains specifiers which are not supported, so it is rendered by String.format
+     */
+    private final boolean formatted;
+
+    private MessageTemplate(String pattern, String[] literals, boolean[] integers, boolean formatted) {
+        this.pattern = pattern;
+        this.literals = literals;
+        this.arguments = literals.length - 1;
+        this.integers = integers;
+        this.formatted = formatted;
+    }
+
+    /**
+     * Parses a pattern
+     *
+     * @param pattern The pattern
+     * @return The template
+     */
+    public static MessageTemplate compile(String pattern) {
+        List<String> literals = new ArrayList<String>();
+        List<Integer> integers = new ArrayList<Integer>();
+        StringBuilder literal = new StringBuilder();
+        final int length = pattern.length();
+
+        for (int i = 0; i < length; i++) {
+            char c = pattern.charAt(i);
+            if (c != '%') {
+                literal.append(c);
+                continue;
+            }
+
+            char specifier = i + 1 < length ? pattern.charAt(i + 1) : 0;
+            switch (specifier) {
+                case 'd':
+                    integers.add(literals.size());
+                    // falls through, the argument is rendered like a %s
+                case 's':
+                    literals.add(literal.toString());
+                    literal.setLength(0);
+                    break;
+                case '%':
+                    literal.append('%');
+                    break;
+                case 'n':
+                    literal.append(System.lineSeparator());
+                    break;
+                default:
+                    return new MessageTemplate(pattern, new String[]{pattern}, null, true);
+            }
+            i++;
+        }
+
+        boolean[] integerArguments = null;
+        if (!integers.isEmpty()) {
+            integerArguments = new boolean[literals.size()];
+            for (int index : integers) {
+                integerArguments[index] = true;
+            }
+        }
+
+        literals.add(literal.toString());
+        return new MessageTemplate(pattern, literals.toArray(new String[literals.size()]), integerArguments, false);
+    }
+
+    /**
+     * Gets the cached template of a pattern
+     *
+     * @param pattern The pattern
+     * @return The template
+     */
+    public static MessageTemplate of(String pattern) {
+        MessageTemplate template = CACHE.get(pattern);
+        if (template == null) {
+            template = compile(pattern);
+            CACHE.put(pattern, template);
+        }
+        return template;
+    }
+
+    /**
+     * Renders this template like {@link String#format(String, Object...)}. Arguments for <code>%d</code> are rendered
+     * with {@link String#valueOf(Object)} as well if they are integers, otherwise the whole template is rendered by
+     * {@link String#format(String, Object...)}, which rejects them.
+     *
+     * @param args The arguments
+     * @return The rendered message
+     */
+    public String format(Object... args) {
+        if (formatted) {
+            return String.format(pattern, args);
+        }
+        if (arguments == 0) {
+            return literals[0];
+        }
+
+        StringBuilder[] holder = BUILDERS.get();
+        StringBuilder builder = holder[0];
+        holder[0] = null;
+        if (builder == null) {
+            builder = new StringBuilder(64);
+        }
+
+        try {
+            appendTo(builder, args);
+            return builder.toString();
+        } finally {
+            if (builder.capacity() <= MAX_BUILDER_CAPACITY) {
+                builder.setLength(0);
+                holder[0] = builder;
+            }
+        }
+    }
+
+    /**
+     * Renders this template into a builder
+     *
+     * @param builder The builder
+     * @param args    The arguments
+     * @return The builder
+     */
+    public StringBuilder appendTo(StringBuilder builder, Object... args) {
+        if (formatted || !isIntegral(args)) {
+            return builder.append(String.format(pattern, args));
+        }
+        if (args.length < arguments) {
+            throw new MissingFormatArgumentException("%s");
+        }
+
+        for (int i = 0; i < arguments; i++) {
+            builder.append(literals[i]).append(args[i]);
+        }
+        return builder.append(literals[arguments]);
+    }
+
+    /**
+     * Checks whether the arguments of every <code>%d</code> are integers, like String.format expects them
+     */
+    private boolean isIntegral(Object[] args) {
+        if (integers == null) {
+            return true;
+        }
+
+        for (int i = 0; i < arguments && i < args.length; i++) {
+            if (integers[i] && args[i] != null && !(args[i] instanceof Integer || args[i] instanceof Long
+                    || args[i] instanceof Short || args[i] instanceof Byte || args[i] instanceof BigInteger)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return The number of arguments of this template
+     */
+    public int getArguments() {
+        return arguments;
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    @Override
+    public String toString() {
+        return "MessageTemplate{" +
+                "pattern='" + pattern + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,266 @@
+package com.p000ison.dev.commandlib;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Represents a ParsePlan, the parser of a command with flags, quoted or greedy arguments. It is compiled once with
+ * the {@link CompiledCommand} and splits the raw input into the arguments and the values of the flags in a single
+ * pass, instead of working on the tokens which are split at every space.
+ */
+final class ParsePlan {
+
+    /**
+     * The value of a flag without a value which is set
+     */
+    static final String PRESENT = "";
+
+    private static final int NOT_A_FLAG = -1, HANDLED = -2, INVALID = -3;
+
+    private final Flag[] flags;
+    /**
+     * The index of every flag by its short name plus one, so 0 means there is no such flag
+     */
+    private final int[] shortFlags = new int[128];
+    private final Map<String, Integer> longFlags = new HashMap<String, Integer>();
+    /**
+     * Whether the argument at the index may be quoted
+     */
+    private final boolean[] quoted;
+    /**
+     * The index of the greedy argument, or -1 if there is none
+     */
+    private final int greedy;
+
+    private ParsePlan(Argument[] arguments, Flag[] flags) {
+        this.flags = flags;
+        for (int i = 0; i < flags.length; i++) {
+            Flag flag = flags[i];
+            if (flag.getShortName() != 0) {
+                shortFlags[flag.getShortName()] = i + 1;
+            }
+            if (flag.getLongName() != null) {
+                longFlags.put(flag.getLongName(), i);
+            }
+        }
+
+        this.quoted = new boolean[arguments.length];
+        int greedy = -1;
+        for (int i = 0; i < arguments.length; i++) {
+            quoted[i] = arguments[i].isQuoted();
+            if (arguments[i].isGreedy()) {
+                greedy = i;
+            }
+        }
+        this.greedy = greedy;
+    }
+
+    /**
+     * Compiles the plan of a command
+     *
+     * @return The plan, or null if the command needs none and its arguments are the tokens
+     */
+    static ParsePlan compile(Argument[] arguments, List<Flag> flags) {
+        boolean needed = !flags.isEmpty();
+        for (Argument argument : arguments) {
+            needed |= argument.isQuoted() || argument.isGreedy();
+        }
+        return needed ? new ParsePlan(arguments, flags.toArray(new Flag[flags.size()])) : null;
+    }
+
+    /**
+     * Gets the index of a flag in the values of {@link Result#flags}
+     *
+     * @param name The long or the short name
+     * @return The index, or -1 if there is no such flag
+     */
+    int indexOfFlag(String name) {
+        Integer index = longFlags.get(name);
+        if (index != null) {
+            return index;
+        }
+        if (name.length() == 1 && name.charAt(0) < shortFlags.length) {
+            return shortFlags[name.charAt(0)] - 1;
+        }
+        return -1;
+    }
+
+    /**
+     * Parses the input
+     *
+     * @param input The input
+     * @param start The index of the first character of the arguments
+     * @return The result, or null if the input is malformed, for example a quote which is not closed or a flag
+     * without its value
+     */
+    Result parse(String input, int start) {
+        final int length = input.length();
+        String[] arguments = new String[Math.max(quoted.length, 1)];
+        int count = 0;
+        String[] values = new String[flags.length];
+        // the flag which waits for its value, or -1
+        int pending = -1;
+        // whether a -- ended the flags
+        boolean flagsEnded = false;
+        StringBuilder builder = null;
+
+        int i = start;
+        while (true) {
+            while (i < length && Character.isWhitespace(input.charAt(i))) {
+                i++;
+            }
+            if (i >= length) {
+                break;
+            }
+
+            if (pending == -1 && count == greedy) {
+                int end = length;
+                while (Character.isWhitespace(input.charAt(end - 1))) {
+                    end--;
+                }
+                arguments[count++] = input.substring(i, end);
+                break;
+            }
+
+            String token;
+            boolean literal = false;
+            if (input.charAt(i) == '"' && (pending != -1 || count < quoted.length && quoted[count])) {
+                if (builder == null) {
+                    builder = new StringBuilder();
+                } else {
+                    builder.setLength(0);
+                }
+
+                boolean closed = false;
+                i++;
+                while (i < length) {
+                    char c = input.charAt(i++);
+                    if (c == '\\' && i < length && (input.charAt(i) == '"' || input.charAt(i) == '\\')) {
+                        builder.append(input.charAt(i++));
+                    } else if (c == '"') {
+                        closed = true;
+                        break;
+                    } else {
+                        builder.append(c);
+                    }
+                }
+
+                // the closing quote must end the token
+                if (!closed || i < length && !Character.isWhitespace(input.charAt(i))) {
+                    return null;
+                }
+                token = builder.toString();
+                literal = true;
+            } else {
+                int begin = i;
+                while (i < length && !Character.isWhitespace(input.charAt(i))) {
+                    i++;
+                }
+                token = input.substring(begin, i);
+            }
+
+            if (pending != -1) {
+                values[pending] = token;
+                pending = -1;
+                continue;
+            }
+
+            if (!literal && !flagsEnded && flags.length != 0 && token.length() > 1 && token.charAt(0) == '-') {
+                if (token.equals("--")) {
+                    flagsEnded = true;
+                    continue;
+                }
+
+                int flag = parseFlag(token, values);
+                if (flag == INVALID) {
+                    return null;
+                } else if (flag == HANDLED) {
+                    continue;
+                } else if (flag != NOT_A_FLAG) {
+                    pending = flag;
+                    continue;
+                }
+            }
+
+            if (count == arguments.length) {
+                arguments = Arrays.copyOf(arguments, count * 2);
+            }
+            arguments[count++] = token;
+        }
+
+        if (pending != -1) {
+            return null;
+        }
+
+        return new Result(count == arguments.length ? arguments : Arrays.copyOf(arguments, count), values);
+    }
+
+    /**
+     * Parses a token which starts with a -
+     *
+     * @return The index of the flag if it waits for its value, {@link #HANDLED}, {@link #INVALID} or
+     * {@link #NOT_A_FLAG} if the token is a argument
+     */
+    private int parseFlag(String token, String[] values) {
+        if (token.charAt(1) == '-') {
+            int separator = token.indexOf('=', 2);
+            Integer index = longFlags.get(separator == -1 ? token.substring(2) : token.substring(2, separator));
+            if (index == null) {
+                return NOT_A_FLAG;
+            }
+
+            if (!flags[index].isValued()) {
+                if (separator != -1) {
+                    return INVALID;
+                }
+                values[index] = PRESENT;
+                return HANDLED;
+            }
+
+            if (separator == -1) {
+                return index;
+            }
+            values[index] = token.substring(separator + 1);
+            return HANDLED;
+        }
+
+        // every character has to be a flag, so a negative number is a argument
+        for (int i = 1; i < token.length(); i++) {
+            char c = token.charAt(i);
+            if (c >= shortFlags.length || shortFlags[c] == 0) {
+                return NOT_A_FLAG;
+            }
+        }
+
+        for (int i = 1; i < token.length(); i++) {
+            int index = shortFlags[token.charAt(i)] - 1;
+            if (flags[index].isValued()) {
+                // only the last flag of a group can take the value
+                if (i != token.length() - 1) {
+                    return INVALID;
+                }
+                return index;
+            }
+            values[index] = PRESENT;
+        }
+        return HANDLED;
+    }
+
+    /**
+     * Represents the Result of a parse
+     */
+    static final class Result {
+        final String[] arguments;
+        /**
+         * The values of the flags, null if a flag is not set and {@link #PRESENT} if a flag without a value is
+         */
+        final String[] flags;
+
+        Result(String[] arguments, String[] flags) {
+            this.arguments = arguments;
+            this.flags = flags;
+        }
+    }
+}
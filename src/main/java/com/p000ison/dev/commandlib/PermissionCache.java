@@ -0,0 +1,86 @@
+package com.p000ison.dev.commandlib;
+
+import com.p000ison.dev.commandlib.internal.LruCache;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Represents a PermissionCache, which remembers the permission decisions of every sender for the commands of a
+ * {@link CommandGraph}. The decisions of a sender are stored in two bits per command, whether it is known and whether
+ * it is allowed. They get discarded if the global epoch changes, the graph gets recompiled or the sender is
+ * invalidated.
+ */
+final class PermissionCache {
+
+    /**
+     * The number of senders whose decisions are kept, the least recently used ones are dropped in case senders are
+     * never invalidated
+     */
+    private static final int MAX_SENDERS = 4096;
+
+    private final LruCache<CommandSender, Decisions> decisions = new LruCache<CommandSender, Decisions>(MAX_SENDERS);
+    private final AtomicInteger epoch = new AtomicInteger();
+
+    boolean hasPermission(CommandSender sender, CompiledCommand command) {
+        CommandGraph graph = command.graph;
+        Decisions current = decisions.get(sender);
+        int currentEpoch = epoch.get();
+
+        if (current == null || current.graph != graph || current.epoch != currentEpoch) {
+            current = new Decisions(graph, currentEpoch);
+            decisions.put(sender, current);
+        }
+
+        return current.hasPermission(sender, command);
+    }
+
+    int getEpoch() {
+        return epoch.get();
+    }
+
+    void invalidate() {
+        epoch.incrementAndGet();
+    }
+
+    void invalidate(CommandSender sender) {
+        decisions.remove(sender);
+    }
+
+    private static final class Decisions {
+        private static final int KNOWN = 1, ALLOWED = 2;
+
+        private final CommandGraph graph;
+        private final int epoch;
+        /**
+         * Two bits per command, so 32 commands per long
+         */
+        private final AtomicLongArray bits;
+
+        Decisions(CommandGraph graph, int epoch) {
+            this.graph = graph;
+            this.epoch = epoch;
+            this.bits = new AtomicLongArray((graph.getCommands().size() + 31) >>> 5);
+        }
+
+        boolean hasPermission(CommandSender sender, CompiledCommand command) {
+            int index = command.id >>> 5;
+            int shift = (command.id & 31) << 1;
+
+            long value = bits.get(index) >>> shift;
+            if ((value & KNOWN) != 0) {
+                return (value & ALLOWED) != 0;
+            }
+
+            boolean allowed = command.hasPermission(sender);
+            long mask = (long) (allowed ? KNOWN | ALLOWED : KNOWN) << shift;
+
+            long current;
+            do {
+                current = bits.get(index);
+            } while (!bits.compareAndSet(index, current, current | mask));
+
+            return allowed;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.p000ison.dev.commandlib;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Represents a PrefixTrie over the lower cased identifiers of one level in the command tree.
+ * Every node caches the entries of its subtree the first time they are requested, so completing the same prefix
+ * again only walks the prefix.
+ */
+final class PrefixTrie {
+
+    private static final Entry[] NO_ENTRIES = new Entry[0];
+    private static final char[] NO_KEYS = new char[0];
+    private static final Node[] NO_NODES = new Node[0];
+
+    private final Node root = new Node();
+
+    void add(String identifier, CompiledCommand command) {
+        String key = CommandIndex.normalize(identifier);
+        Node current = root;
+
+        for (int i = 0; i < key.length(); i++) {
+            current = current.getOrCreateChild(key.charAt(i));
+        }
+
+        current.addEntry(new Entry(identifier, command));
+    }
+
+    /**
+     * Gets all entries whose identifier starts with the prefix, ignoring case
+     *
+     * @param prefix The prefix
+     * @return The entries, ordered by identifier
+     */
+    Entry[] find(String prefix) {
+        String key = CommandIndex.normalize(prefix);
+        Node current = root;
+
+        for (int i = 0; i < key.length() && current != null; i++) {
+            current = current.getChild(key.charAt(i));
+        }
+
+        return current == null ? NO_ENTRIES : current.getSubtree();
+    }
+
+    static final class Entry {
+        final String identifier;
+        final CompiledCommand command;
+
+        Entry(String identifier, CompiledCommand command) {
+            this.identifier = identifier;
+            this.command = command;
+        }
+    }
+
+    private static final class Node {
+        private char[] keys = NO_KEYS;
+        private Node[] children = NO_NODES;
+        /**
+         * The entries whose identifier ends at this node, most nodes have none
+         */
+        private Entry[] entries = NO_ENTRIES;
+        private volatile Entry[] subtree;
+
+        void addEntry(Entry entry) {
+            Entry[] extended = new Entry[entries.length + 1];
+            System.arraycopy(entries, 0, extended, 0, entries.length);
+            extended[entries.length] = entry;
+            entries = extended;
+        }
+
+        Node getChild(char key) {
+            int index = indexOf(key);
+            return index < 0 ? null : children[index];
+        }
+
+        Node getOrCreateChild(char key) {
+            int index = indexOf(key);
+            if (index >= 0) {
+                return children[index];
+            }
+
+            // keep the keys sorted, so the subtree is ordered by identifier
+            int insert = -(index + 1);
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, insert);
+            System.arraycopy(children, 0, newChildren, 0, insert);
+            System.arraycopy(keys, insert, newKeys, insert + 1, keys.length - insert);
+            System.arraycopy(children, insert, newChildren, insert + 1, children.length - insert);
+
+            Node child = new Node();
+            newKeys[insert] = key;
+            newChildren[insert] = child;
+            keys = newKeys;
+            children = newChildren;
+            return child;
+        }
+
+        Entry[] getSubtree() {
+            Entry[] result = subtree;
+            if (result == null) {
+                List<Entry> collected = new ArrayList<Entry>();
+                collect(collected);
+                result = collected.toArray(new Entry[collected.size()]);
+                subtree = result;
+            }
+            return result;
+        }
+
+        private void collect(List<Entry> collected) {
+            Collections.addAll(collected, entries);
+            for (Node child : children) {
+                child.collect(collected);
+            }
+        }
+
+        private int indexOf(char key) {
+            int low = 0, high = keys.length - 1;
+
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                char current = keys[middle];
+
+                if (current < key) {
+                    low = middle + 1;
+                } else if (current > key) {
+                    high = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+
+            return -(low + 1);
+        }
+    }
+}
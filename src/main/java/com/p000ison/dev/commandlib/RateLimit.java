@@ -0,0 +1,111 @@
+package com.p000ison.dev.commandlib;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Represents a RateLimit of a command per sender. A sender may call the command up to {@link #getBurst()} times at
+ * once, after that once per {@link #getInterval(TimeUnit)}.
+ *
+ * @see Command#setRateLimit(RateLimit)
+ */
+public final class RateLimit {
+
+    private final long interval;
+    private final int burst;
+
+    private RateLimit(long interval, int burst) {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("The interval must be positive!");
+        }
+        if (burst < 1) {
+            throw new IllegalArgumentException("The burst must be at least 1!");
+        }
+        this.interval = interval;
+        this.burst = burst;
+    }
+
+    /**
+     * Allows a number of calls per period, which may also be used at once
+     *
+     * @param permits The number of calls
+     * @param period  The period
+     * @param unit    The unit of the period
+     * @return The rate limit
+     */
+    public static RateLimit of(int permits, long period, TimeUnit unit) {
+        if (permits < 1) {
+            throw new IllegalArgumentException("The permits must be at least 1!");
+        }
+        return new RateLimit(unit.toNanos(period) / permits, permits);
+    }
+
+    /**
+     * Allows a number of calls per second
+     *
+     * @param rate  The calls per second
+     * @param burst The number of calls which may be used at once
+     * @return The rate limit
+     */
+    public static RateLimit perSecond(double rate, int burst) {
+        if (!(rate > 0)) {
+            throw new IllegalArgumentException("The rate must be positive!");
+        }
+        return new RateLimit((long) (TimeUnit.SECONDS.toNanos(1) / rate), burst);
+    }
+
+    /**
+     * Allows one call per cooldown
+     *
+     * @param cooldown The time between two calls
+     * @param unit     The unit of the cooldown
+     * @return The rate limit
+     */
+    public static RateLimit cooldown(long cooldown, TimeUnit unit) {
+        return new RateLimit(unit.toNanos(cooldown), 1);
+    }
+
+    /**
+     * @param unit The unit
+     * @return The time after which another call is allowed
+     */
+    public long getInterval(TimeUnit unit) {
+        return unit.convert(interval, TimeUnit.NANOSECONDS);
+    }
+
+    public int getBurst() {
+        return burst;
+    }
+
+    long getIntervalNanos() {
+        return interval;
+    }
+
+    /**
+     * @return The time a sender which used the whole burst is ahead of the rate in nanoseconds
+     */
+    long getToleranceNanos() {
+        return interval * (burst - 1);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof RateLimit)) return false;
+
+        RateLimit rateLimit = (RateLimit) o;
+        return interval == rateLimit.interval && burst == rateLimit.burst;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (int) (interval ^ (interval >>> 32)) + burst;
+    }
+
+    @Override
+    public String toString() {
+        return "RateLimit{" +
+                "interval=" + interval +
+                ", burst=" + burst +
+                '}';
+    }
+}
@@ -0,0 +1,136 @@
+package com.p000ison.dev.commandlib;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Represents the RateLimiter of a command, which enforces its {@link RateLimit} per sender with the generic cell rate
+ * algorithm. Every sender only needs the theoretical arrival time of its next call, which is updated by a compare and
+ * set. A sender whose arrival time has passed is in the same state as a new sender, so it can be evicted at any time.
+ */
+final class RateLimiter {
+
+    /**
+     * The number of senders after which the idle senders are evicted. If there are more active senders, new senders
+     * are rejected until some of them get idle, forgetting a active sender would give it a new burst.
+     */
+    private static final int MAX_SENDERS = 4096;
+    private static final long ORIGIN = System.nanoTime();
+
+    private final RateLimit limit;
+    private final long interval;
+    private final long tolerance;
+    private final ConcurrentMap<CommandSender, AtomicLong> senders = new ConcurrentHashMap<CommandSender, AtomicLong>();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    RateLimiter(RateLimit limit) {
+        this.limit = limit;
+        this.interval = limit.getIntervalNanos();
+        this.tolerance = limit.getToleranceNanos();
+    }
+
+    RateLimit getLimit() {
+        return limit;
+    }
+
+    /**
+     * Tries to take a call of the sender
+     *
+     * @param sender The sender
+     * @return Whether the call is allowed
+     */
+    boolean tryAcquire(CommandSender sender) {
+        long now = now();
+        AtomicLong arrival = getArrival(sender, now);
+        if (arrival == null) {
+            return false;
+        }
+
+        while (true) {
+            long current = arrival.get();
+            long start = Math.max(current, now);
+            if (start - now > tolerance) {
+                return false;
+            }
+            if (arrival.compareAndSet(current, start + interval)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @return The time until the sender may call again in nanoseconds, or 0 if it may call now
+     */
+    long getWait(CommandSender sender) {
+        long now = now();
+        AtomicLong arrival = senders.get(sender);
+        if (arrival != null) {
+            return Math.max(0, arrival.get() - tolerance - now);
+        }
+        if (senders.size() < MAX_SENDERS) {
+            return 0;
+        }
+
+        // a sender which has been rejected because all tracked senders are active waits for the first to get idle
+        long first = Long.MAX_VALUE;
+        for (AtomicLong current : senders.values()) {
+            first = Math.min(first, current.get());
+        }
+        return first == Long.MAX_VALUE ? 0 : Math.max(0, first - now);
+    }
+
+    /**
+     * @return The arrival time of the sender, or null if it can not be tracked because all senders are active
+     */
+    private AtomicLong getArrival(CommandSender sender, long now) {
+        AtomicLong arrival = senders.get(sender);
+        if (arrival != null) {
+            return arrival;
+        }
+
+        if (senders.size() >= MAX_SENDERS) {
+            evict(now);
+            if (senders.size() >= MAX_SENDERS) {
+                return null;
+            }
+        }
+
+        AtomicLong created = new AtomicLong();
+        arrival = senders.putIfAbsent(sender, created);
+        return arrival == null ? created : arrival;
+    }
+
+    /**
+     * Removes the senders whose arrival time has passed, they are in the same state as new senders
+     */
+    private void evict(long now) {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            for (Map.Entry<CommandSender, AtomicLong> entry : senders.entrySet()) {
+                if (entry.getValue().get() <= now) {
+                    senders.remove(entry.getKey(), entry.getValue());
+                }
+            }
+
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    /**
+     * @return The number of senders which are tracked
+     */
+    int size() {
+        return senders.size();
+    }
+
+    private static long now() {
+        return System.nanoTime() - ORIGIN;
+    }
+}
@@ -0,0 +1,106 @@
+package com.p000ison.dev.commandlib;
+
+import com.p000ison.dev.commandlib.internal.LruCache;
+
+import java.util.function.Predicate;
+
+/**
+ * Represents the ReplyCache, which remembers the replies of cacheable commands in a {@link LruCache}. Entries expire
+ * after the time to live of their command, if their command has been modified or if the permissions have been
+ * invalidated.
+ */
+final class ReplyCache {
+
+    private final LruCache<Key, Entry> entries;
+
+    ReplyCache(int maxEntries) {
+        this.entries = new LruCache<Key, Entry>(maxEntries);
+    }
+
+    /**
+     * Gets the replies of a call
+     *
+     * @return The replies, or null if there are none or they expired
+     */
+    String[] get(Key key, int version, int permissionEpoch) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (!entry.isValid(System.nanoTime(), version, permissionEpoch)) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry.replies;
+    }
+
+    void put(Key key, String[] replies, long ttl, int version, int permissionEpoch) {
+        entries.put(key, new Entry(replies, System.nanoTime() + ttl, version, permissionEpoch));
+    }
+
+    void invalidate() {
+        entries.clear();
+    }
+
+    void invalidate(final Command command) {
+        entries.removeKeys(new Predicate<Key>() {
+            @Override
+            public boolean test(Key key) {
+                return key.command == command;
+            }
+        });
+    }
+
+    /**
+     * Represents the key of a call. The owner is the permission profile of the sender, or the sender itself if it
+     * has none.
+     */
+    static final class Key {
+        private final Command command;
+        private final String arguments;
+        private final Object owner;
+        private final int hash;
+
+        Key(Command command, String arguments, Object owner) {
+            this.command = command;
+            this.arguments = arguments;
+            this.owner = owner;
+            this.hash = 31 * (31 * System.identityHashCode(command) + arguments.hashCode()) + owner.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+
+            Key key = (Key) o;
+            return command == key.command && hash == key.hash && arguments.equals(key.arguments) && owner.equals(key.owner);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class Entry {
+        private final String[] replies;
+        private final long expires;
+        /**
+         * The version of the command when the replies have been created
+         */
+        private final int version;
+        private final int permissionEpoch;
+
+        Entry(String[] replies, long expires, int version, int permissionEpoch) {
+            this.replies = replies;
+            this.expires = expires;
+            this.version = version;
+            this.permissionEpoch = permissionEpoch;
+        }
+
+        boolean isValid(long now, int version, int permissionEpoch) {
+            return now - expires < 0 && this.version == version && this.permissionEpoch == permissionEpoch;
+        }
+    }
+}
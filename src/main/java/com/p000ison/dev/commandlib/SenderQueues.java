@@ -0,0 +1,61 @@
+package com.p000ison.dev.commandlib;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
+
+/**
+ * Represents the queues of asynchronous commands. Tasks of the same sender run one after another in the order they
+ * have been submitted, tasks of different senders run in parallel.
+ */
+final class SenderQueues {
+
+    /**
+     * The last submitted task of every sender which has pending tasks
+     */
+    private final ConcurrentMap<CommandSender, CompletableFuture<Void>> tails = new ConcurrentHashMap<CommandSender, CompletableFuture<Void>>();
+
+    CompletableFuture<Void> submit(final CommandSender sender, final Runnable task, final Executor executor) {
+        final CompletableFuture<Void> future = new CompletableFuture<Void>();
+        final Runnable run = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    task.run();
+                    future.complete(null);
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    tails.remove(sender, future);
+                }
+            }
+        };
+
+        CompletableFuture<Void> previous = tails.put(sender, future);
+
+        if (previous == null) {
+            execute(run, executor, sender, future);
+        } else {
+            previous.whenComplete(new BiConsumer<Void, Throwable>() {
+                @Override
+                public void accept(Void result, Throwable cause) {
+                    execute(run, executor, sender, future);
+                }
+            });
+        }
+
+        return future;
+    }
+
+    private void execute(Runnable run, Executor executor, CommandSender sender, CompletableFuture<Void> future) {
+        try {
+            executor.execute(run);
+        } catch (RuntimeException e) {
+            // the executor rejected the task
+            tails.remove(sender, future);
+            future.completeExceptionally(e);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.p000ison.dev.commandlib;
+
+import org.apache.commons.lang.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Represents a SuggestionIndex, a BK-tree over the lower cased identifiers of the root commands.
+ * A query only visits the subtrees whose edit distance can be within the limit, instead of comparing the typo with
+ * every identifier.
+ */
+final class SuggestionIndex {
+
+    private static final int[] NO_DISTANCES = new int[0];
+    private static final Node[] NO_NODES = new Node[0];
+
+    private Node root;
+
+    void add(CompiledCommand command) {
+        for (String identifier : command.identifiers) {
+            add(CommandIndex.normalize(identifier), command);
+        }
+    }
+
+    private void add(String identifier, CompiledCommand command) {
+        if (root == null) {
+            root = new Node(identifier, command);
+            return;
+        }
+
+        Node current = root;
+        while (true) {
+            int distance = StringUtils.getLevenshteinDistance(identifier, current.identifier);
+            if (distance == 0) {
+                current.add(command);
+                return;
+            }
+
+            Node child = current.getChild(distance);
+            if (child == null) {
+                current.addChild(distance, new Node(identifier, command));
+                return;
+            }
+            current = child;
+        }
+    }
+
+    /**
+     * Finds the closest commands to a identifier
+     *
+     * @param identifier  The identifier which has not been found
+     * @param maxDistance The maximal edit distance
+     * @return The matches, ordered by distance and similarity
+     */
+    List<Match> find(String identifier, int maxDistance) {
+        List<Match> matches = new ArrayList<Match>();
+        if (root == null) {
+            return matches;
+        }
+
+        String normalized = CommandIndex.normalize(identifier);
+        List<Node> pending = new ArrayList<Node>();
+        pending.add(root);
+
+        while (!pending.isEmpty()) {
+            Node node = pending.remove(pending.size() - 1);
+            int distance = StringUtils.getLevenshteinDistance(normalized, node.identifier);
+
+            if (distance <= maxDistance) {
+                matches.add(new Match(node, distance, CommandExecutor.fuzzyEqualsString(normalized, node.identifier, distance)));
+            }
+
+            for (int i = 0; i < node.size; i++) {
+                int edge = node.distances[i];
+                if (edge >= distance - maxDistance && edge <= distance + maxDistance) {
+                    pending.add(node.children[i]);
+                }
+            }
+        }
+
+        Collections.sort(matches, MATCH_ORDER);
+        return matches;
+    }
+
+    private static final Comparator<Match> MATCH_ORDER = new Comparator<Match>() {
+        @Override
+        public int compare(Match a, Match b) {
+            if (a.distance != b.distance) {
+                return a.distance < b.distance ? -1 : 1;
+            }
+            return Double.compare(b.similarity, a.similarity);
+        }
+    };
+
+    static final class Match {
+        private final Node node;
+        final int distance;
+        final double similarity;
+
+        Match(Node node, int distance, double similarity) {
+            this.node = node;
+            this.distance = distance;
+            this.similarity = similarity;
+        }
+
+        CompiledCommand[] getCommands() {
+            return node.commands;
+        }
+    }
+
+    private static final class Node {
+        private final String identifier;
+        private CompiledCommand[] commands;
+
+        private int[] distances = NO_DISTANCES;
+        private Node[] children = NO_NODES;
+        private int size;
+
+        Node(String identifier, CompiledCommand command) {
+            this.identifier = identifier;
+            this.commands = new CompiledCommand[]{command};
+        }
+
+        void add(CompiledCommand command) {
+            for (CompiledCommand current : commands) {
+                if (current == command) {
+                    return;
+                }
+            }
+
+            CompiledCommand[] extended = new CompiledCommand[commands.length + 1];
+            System.arraycopy(commands, 0, extended, 0, commands.length);
+            extended[commands.length] = command;
+            commands = extended;
+        }
+
+        Node getChild(int distance) {
+            for (int i = 0; i < size; i++) {
+                if (distances[i] == distance) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        void addChild(int distance, Node child) {
+            if (size == distances.length) {
+                int capacity = size == 0 ? 2 : size << 1;
+                int[] newDistances = new int[capacity];
+                System.arraycopy(distances, 0, newDistances, 0, size);
+                distances = newDistances;
+                Node[] newChildren = new Node[capacity];
+                System.arraycopy(children, 0, newChildren, 0, size);
+                children = newChildren;
+            }
+
+            distances[size] = distance;
+            children[size] = child;
+            size++;
+        }
+    }
+}
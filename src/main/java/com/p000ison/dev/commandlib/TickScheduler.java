@@ -0,0 +1,90 @@
+package com.p000ison.dev.commandlib;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Represents the TickScheduler, which runs the steps of the {@link CommandTask}s in a round robin until the budget
+ * of a tick is used up. Tasks may be scheduled from any thread, the ticks are run by the thread of the host.
+ */
+final class TickScheduler {
+
+    private final CommandExecutor executor;
+    /**
+     * The scheduled tasks which have not been run yet
+     */
+    private final Queue<ScheduledTask> scheduled = new ConcurrentLinkedQueue<ScheduledTask>();
+    /**
+     * The size of {@link #scheduled}, which the queue itself only counts by walking it
+     */
+    private final AtomicInteger queued = new AtomicInteger();
+    /**
+     * The tasks which have been started, only accessed during a tick
+     */
+    private final ArrayDeque<ScheduledTask> running = new ArrayDeque<ScheduledTask>();
+
+    TickScheduler(CommandExecutor executor) {
+        this.executor = executor;
+    }
+
+    void schedule(CallInformation information, CommandTask task) {
+        scheduled.add(new ScheduledTask(information, task));
+        queued.incrementAndGet();
+    }
+
+    /**
+     * Runs the tasks until they are done or the budget is used up. At least one step is run if there are tasks.
+     *
+     * @param budget The budget of this tick in nanoseconds
+     * @return The number of tasks which are not done yet, including the tasks which have been scheduled meanwhile
+     */
+    synchronized int tick(long budget) {
+        ScheduledTask next;
+        while ((next = scheduled.poll()) != null) {
+            queued.decrementAndGet();
+            running.addLast(next);
+        }
+
+        final long tickStart = System.nanoTime();
+
+        while (!running.isEmpty()) {
+            ScheduledTask current = running.pollFirst();
+
+            boolean done = true;
+            try {
+                done = current.task.step(current.information);
+                current.information.flush();
+            } catch (RuntimeException e) {
+                executor.onAsyncCommandFailed(current.information, e);
+            } catch (Error e) {
+                executor.onAsyncCommandFailed(current.information, e);
+                throw e;
+            }
+            long elapsed = System.nanoTime() - tickStart;
+
+            if (!done) {
+                running.addLast(current);
+            }
+
+            // the whole tick is checked after every step, the step which used up the budget is reported
+            if (elapsed > budget) {
+                executor.onTickBudgetExceeded(current.information, elapsed);
+                break;
+            }
+        }
+
+        return running.size() + queued.get();
+    }
+
+    private static final class ScheduledTask {
+        private final CallInformation information;
+        private final CommandTask task;
+
+        ScheduledTask(CallInformation information, CommandTask task) {
+            this.information = information;
+            this.task = task;
+        }
+    }
+}
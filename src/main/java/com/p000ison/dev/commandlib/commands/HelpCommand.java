@@ -1,7 +1,9 @@
 package com.p000ison.dev.commandlib.commands;
 
 import com.p000ison.dev.commandlib.*;
+import com.p000ison.dev.commandlib.internal.LruCache;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -9,13 +11,24 @@ import java.util.List;
  */
 public class HelpCommand extends Command {
 
+    /**
+     * The number of permission profiles or senders whose visible entries are kept, the least recently used ones are
+     * dropped
+     */
+    private static final int MAX_PROFILES = 256;
+
     private final CommandExecutor executor;
-    private final String format;
+    private final MessageTemplate format;
+
+    /**
+     * The rendered lines of the registered commands, rebuilt if a command of the executor has been modified
+     */
+    private volatile HelpLines lines;
 
     public HelpCommand(CommandExecutor executor, String name, String usage, String page, String format, String identifiers) {
         super(name, usage);
         this.executor = executor;
-        this.format = format;
+        this.format = MessageTemplate.compile(format);
 
         addArgument(new Argument(page, true, true));
         setIdentifiers(identifiers);
@@ -23,21 +36,29 @@ public class HelpCommand extends Command {
 
     @Override
     public void execute(CommandSender sender, CallInformation information) {
-        int size = executor.getCommands().size();
+        final HelpLines lines = getLines();
+        final int[] visible = lines.getVisible(sender);
+
+        int size = visible.length;
         final int page = information.getPage(size);
         final int start = information.getStartIndex(page, size);
         final int end = information.getEndIndex(page, size);
 
-        final List<Command> commands = executor.getCommands();
-
         for (int i = start; i < end; i++) {
-            Command command = commands.get(i);
+            information.reply(lines.lines[visible[i]]);
+        }
+    }
 
-            if (command instanceof HelpEntryValidation && !((HelpEntryValidation) command).displayHelpEntry(sender)) {
-                continue;
-            }
-            sender.sendMessage(createLine(command));
+    private HelpLines getLines() {
+        HelpLines current = lines;
+        int modifications = executor.getModifications();
+
+        if (current == null || current.modifications != modifications) {
+            current = new HelpLines(modifications, executor.getCommands());
+            lines = current;
         }
+
+        return current;
     }
 
     private String createLine(Command command) {
@@ -50,6 +71,76 @@ public class HelpCommand extends Command {
             argumentsString.append('<').append(argument.getName()).append('>').append(' ');
         }
 
-        return String.format(format, identifier, argumentsString.toString(), usage);
+        return format.format(identifier, argumentsString, usage);
+    }
+
+    private final class HelpLines {
+        private final int modifications;
+        private final List<Command> commands;
+        private final String[] lines;
+        /**
+         * The indexes of the visible lines for every permission profile, or every sender without one
+         */
+        private final LruCache<Object, VisibleLines> visible = new LruCache<Object, VisibleLines>(MAX_PROFILES);
+
+        HelpLines(int modifications, List<Command> commands) {
+            this.modifications = modifications;
+            this.commands = new ArrayList<Command>(commands);
+            this.lines = new String[commands.size()];
+
+            for (int i = 0; i < lines.length; i++) {
+                lines[i] = createLine(this.commands.get(i));
+            }
+        }
+
+        int[] getVisible(CommandSender sender) {
+            // a sender without a permission profile gets its own entry
+            Object profile = executor.getPermissionProfile(sender);
+            if (profile == null) {
+                profile = sender;
+            }
+
+            int epoch = executor.getPermissionEpoch();
+            VisibleLines current = visible.get(profile);
+
+            if (current == null || current.epoch != epoch) {
+                current = new VisibleLines(epoch, findVisible(sender));
+                visible.put(profile, current);
+            }
+
+            return current.indexes;
+        }
+
+        private int[] findVisible(CommandSender sender) {
+            int[] indexes = new int[commands.size()];
+            int size = 0;
+
+            for (int i = 0; i < indexes.length; i++) {
+                Command command = commands.get(i);
+
+                if (command instanceof HelpEntryValidation && !((HelpEntryValidation) command).displayHelpEntry(sender)) {
+                    continue;
+                }
+                indexes[size++] = i;
+            }
+
+            if (size == indexes.length) {
+                return indexes;
+            }
+
+            int[] trimmed = new int[size];
+            System.arraycopy(indexes, 0, trimmed, 0, size);
+            return trimmed;
+        }
+    }
+
+    private static final class VisibleLines {
+        private final int epoch;
+        private final int[] indexes;
+
+        VisibleLines(int epoch, int[] indexes) {
+            this.epoch = epoch;
+            this.indexes = indexes;
+        }
     }
 }
@@ -0,0 +1,152 @@
+package com.p000ison.dev.commandlib.internal;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Represents a LruCache, a bounded map which drops the least recently used entry once it is full. The entries are
+ * split into segments by the hash of the key, every segment is a small LRU map with its own lock, so lookups of
+ * different keys rarely wait for each other. The segments hold exactly the configured number of entries together.
+ * <p>
+ * This class is internal to CommandLib and not part of its API.
+ *
+ * @param <K> The type of the keys
+ * @param <V> The type of the values
+ */
+public final class LruCache<K, V> {
+
+    private static final int SEGMENTS = 16;
+
+    private final Segment<K, V>[] segments;
+
+    @SuppressWarnings("unchecked")
+    public LruCache(int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("The cache must hold at least one entry!");
+        }
+
+        // small caches get less segments, so every segment still holds a few entries
+        int count = Math.min(SEGMENTS, Integer.highestOneBit(Math.max(1, maxEntries / 4)));
+        this.segments = new Segment[count];
+        // the remainder is spread over the first segments, so the sum is exactly the maximum
+        int size = maxEntries / count, remainder = maxEntries % count;
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment<K, V>(i < remainder ? size + 1 : size);
+        }
+    }
+
+    /**
+     * Gets a value and marks it as recently used
+     *
+     * @param key The key
+     * @return The value, or null if there is none
+     */
+    public V get(K key) {
+        return segment(key).get(key);
+    }
+
+    /**
+     * Puts a value, the least recently used entry of the segment is dropped if it is full
+     *
+     * @param key   The key
+     * @param value The value
+     */
+    public void put(K key, V value) {
+        segment(key).put(key, value);
+    }
+
+    public void remove(K key) {
+        segment(key).remove(key);
+    }
+
+    /**
+     * Removes a value only if the key still maps to it, so a value which has been put in the meantime is kept
+     *
+     * @param key   The key
+     * @param value The value
+     */
+    public void remove(K key, V value) {
+        segment(key).remove(key, value);
+    }
+
+    /**
+     * Removes all entries whose key matches a filter
+     *
+     * @param filter The filter
+     */
+    public void removeKeys(Predicate<? super K> filter) {
+        for (Segment<K, V> segment : segments) {
+            segment.removeKeys(filter);
+        }
+    }
+
+    public void clear() {
+        for (Segment<K, V> segment : segments) {
+            segment.clear();
+        }
+    }
+
+    /**
+     * @return The number of entries
+     */
+    public int size() {
+        int size = 0;
+        for (Segment<K, V> segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    private Segment<K, V> segment(K key) {
+        int hash = key.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (segments.length - 1)];
+    }
+
+    private static final class Segment<K, V> {
+        private final LinkedHashMap<K, V> entries;
+
+        Segment(final int maxEntries) {
+            this.entries = new LinkedHashMap<K, V>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                    return size() > maxEntries;
+                }
+            };
+        }
+
+        synchronized V get(K key) {
+            return entries.get(key);
+        }
+
+        synchronized void put(K key, V value) {
+            entries.put(key, value);
+        }
+
+        synchronized void remove(K key) {
+            entries.remove(key);
+        }
+
+        synchronized void remove(K key, V value) {
+            entries.remove(key, value);
+        }
+
+        synchronized void removeKeys(Predicate<? super K> filter) {
+            Iterator<K> iterator = entries.keySet().iterator();
+            while (iterator.hasNext()) {
+                if (filter.test(iterator.next())) {
+                    iterator.remove();
+                }
+            }
+        }
+
+        synchronized void clear() {
+            entries.clear();
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+    }
+}
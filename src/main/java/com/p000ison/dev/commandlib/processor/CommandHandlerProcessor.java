@@ -0,0 +1,312 @@
+package com.p000ison.dev.commandlib.processor;
+
+import com.p000ison.dev.commandlib.CommandHandler;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Represents the CommandHandlerProcessor, which checks the {@link CommandHandler} methods at compile time and
+ * generates a {@link com.p000ison.dev.commandlib.CommandHandlerBinding} for every class which declares them.
+ * <p>
+ * Classes whose handlers can not be called from their package, for example private methods or anonymous classes,
+ * get no binding and are still registered by reflection.
+ */
+public class CommandHandlerProcessor extends AbstractProcessor {
+
+    private static final String SENDER = "com.p000ison.dev.commandlib.CommandSender";
+    private static final String INFORMATION = "com.p000ison.dev.commandlib.CallInformation";
+    private static final String BINDING = "com.p000ison.dev.commandlib.CommandHandlerBinding";
+    private static final String DEFINITION = "com.p000ison.dev.commandlib.HandlerDefinition";
+    private static final String SUFFIX = "$$CommandHandlers";
+
+    private Elements elements;
+    private Types types;
+    private Filer filer;
+    private Messager messager;
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        elements = processingEnv.getElementUtils();
+        types = processingEnv.getTypeUtils();
+        filer = processingEnv.getFiler();
+        messager = processingEnv.getMessager();
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Collections.singleton(CommandHandler.class.getName());
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round) {
+        Set<TypeElement> classes = new LinkedHashSet<TypeElement>();
+
+        for (Element element : round.getElementsAnnotatedWith(CommandHandler.class)) {
+            if (element.getKind() == ElementKind.METHOD && element.getEnclosingElement() instanceof TypeElement) {
+                classes.add((TypeElement) element.getEnclosingElement());
+            }
+        }
+
+        for (TypeElement clazz : classes) {
+            List<ExecutableElement> handlers = new ArrayList<ExecutableElement>();
+            boolean valid = true;
+
+            for (Element element : clazz.getEnclosedElements()) {
+                if (element.getKind() == ElementKind.METHOD && element.getAnnotation(CommandHandler.class) != null) {
+                    ExecutableElement method = (ExecutableElement) element;
+                    valid &= validate(method);
+                    handlers.add(method);
+                }
+            }
+            // the reflective registration orders the handlers by their method names as well
+            Collections.sort(handlers, new Comparator<ExecutableElement>() {
+                @Override
+                public int compare(ExecutableElement o1, ExecutableElement o2) {
+                    return o1.getSimpleName().toString().compareTo(o2.getSimpleName().toString());
+                }
+            });
+
+            valid &= validateAliases(handlers);
+
+            if (!valid) {
+                continue;
+            }
+
+            String inaccessible = getInaccessible(clazz, handlers);
+            if (inaccessible != null) {
+                messager.printMessage(Diagnostic.Kind.NOTE, inaccessible + ", so the handlers of " + clazz.getQualifiedName()
+                        + " are registered by reflection", clazz);
+                continue;
+            }
+
+            try {
+                generate(clazz, handlers);
+            } catch (IOException e) {
+                messager.printMessage(Diagnostic.Kind.ERROR, "Failed to generate the handlers: " + e.getMessage(), clazz);
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Checks the signature which {@link com.p000ison.dev.commandlib.CommandExecutor} expects
+     */
+    private boolean validate(ExecutableElement method) {
+        List<? extends VariableElement> parameters = method.getParameters();
+        boolean valid = true;
+
+        if (parameters.size() != 2 || !isType(parameters.get(0).asType(), SENDER) || !isType(parameters.get(1).asType(), INFORMATION)) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "A @CommandHandler must take the parameters (CommandSender, CallInformation)", method);
+            valid = false;
+        }
+
+        if (method.getModifiers().contains(Modifier.ABSTRACT)) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "A @CommandHandler must not be abstract", method);
+            valid = false;
+        }
+
+        CommandHandler annotation = method.getAnnotation(CommandHandler.class);
+        // the reflective registration accepts this as well, so it is only a warning
+        if (annotation.minArguments() > annotation.maxArguments()) {
+            messager.printMessage(Diagnostic.Kind.WARNING, "The minArguments are greater than the maxArguments, so all maxArguments are required", method);
+        }
+        if (annotation.arguments().length > annotation.maxArguments()) {
+            messager.printMessage(Diagnostic.Kind.WARNING, "The arguments after maxArguments are ignored", method);
+        }
+
+        if (annotation.cooldown() < 0 || !(annotation.rateLimit() >= 0) || Double.isInfinite(annotation.rateLimit()) || annotation.burst() < 1) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "The cooldown and rateLimit must be finite and not negative, the burst must be at least 1", method);
+            valid = false;
+        }
+
+        return valid;
+    }
+
+    /**
+     * The aliases are the names of other handlers of the same class
+     */
+    private boolean validateAliases(List<ExecutableElement> handlers) {
+        Set<String> names = new HashSet<String>();
+        for (ExecutableElement handler : handlers) {
+            names.add(handler.getAnnotation(CommandHandler.class).name());
+        }
+
+        boolean valid = true;
+        for (ExecutableElement handler : handlers) {
+            for (String alias : handler.getAnnotation(CommandHandler.class).aliases()) {
+                if (!names.contains(alias)) {
+                    messager.printMessage(Diagnostic.Kind.ERROR, "The alias " + alias + " is not the name of a @CommandHandler in this class", handler);
+                    valid = false;
+                }
+            }
+        }
+        return valid;
+    }
+
+    private boolean isType(TypeMirror type, String name) {
+        TypeElement expected = elements.getTypeElement(name);
+        return expected != null && types.isSameType(types.erasure(type), types.erasure(expected.asType()));
+    }
+
+    /**
+     * The binding is in the package of the class, so the class, all its enclosing classes and the handlers must be
+     * accessible from there
+     *
+     * @return The reason why the handlers are not accessible, or null if they are
+     */
+    private String getInaccessible(TypeElement clazz, List<ExecutableElement> handlers) {
+        for (Element current = clazz; current instanceof TypeElement; current = current.getEnclosingElement()) {
+            TypeElement type = (TypeElement) current;
+            if (type.getNestingKind() != NestingKind.TOP_LEVEL && type.getNestingKind() != NestingKind.MEMBER) {
+                return "The class is local or anonymous";
+            }
+            if (type.getModifiers().contains(Modifier.PRIVATE)) {
+                return "The class " + type.getSimpleName() + " is private";
+            }
+        }
+
+        for (ExecutableElement handler : handlers) {
+            if (handler.getModifiers().contains(Modifier.PRIVATE)) {
+                return "The method " + handler.getSimpleName() + " is private";
+            }
+        }
+
+        return null;
+    }
+
+    private void generate(TypeElement clazz, List<ExecutableElement> handlers) throws IOException {
+        PackageElement pkg = elements.getPackageOf(clazz);
+        String packageName = pkg.isUnnamed() ? "" : pkg.getQualifiedName().toString();
+        String binaryName = elements.getBinaryName(clazz).toString();
+        String simpleName = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1)) + SUFFIX;
+        String type = clazz.getQualifiedName().toString();
+
+        Writer writer = filer.createSourceFile(packageName.isEmpty() ? simpleName : packageName + '.' + simpleName, clazz).openWriter();
+        try {
+            if (!packageName.isEmpty()) {
+                writer.write("package " + packageName + ";\n\n");
+            }
+
+            writer.write("/**\n * Generated by the CommandHandlerProcessor from " + type + "\n */\n");
+            writer.write("@SuppressWarnings({\"rawtypes\", \"unchecked\"})\n");
+            writer.write("public final class " + simpleName + " implements " + BINDING + "<" + type + "> {\n\n");
+
+            writer.write("    private static final " + DEFINITION + "[] DEFINITIONS = {\n");
+            for (ExecutableElement handler : handlers) {
+                CommandHandler annotation = handler.getAnnotation(CommandHandler.class);
+                writer.write("            new " + DEFINITION + "(" + literal(handler.getSimpleName().toString())
+                        + ", " + literal(annotation.name())
+                        + ", " + literal(annotation.usage())
+                        + ", " + literal(annotation.identifiers())
+                        + ", " + literal(annotation.aliases())
+                        + ", " + literal(annotation.permissions())
+                        + ", " + annotation.minArguments()
+                        + ", " + annotation.maxArguments()
+                        + ", " + literal(annotation.arguments())
+                        + ", " + annotation.async()
+                        + ", " + annotation.cooldown() + "L"
+                        + ", " + annotation.rateLimit()
+                        + ", " + annotation.burst() + "),\n");
+            }
+            writer.write("    };\n\n");
+
+            writer.write("    @Override\n");
+            writer.write("    public " + DEFINITION + "[] getDefinitions() {\n");
+            writer.write("        return DEFINITIONS.clone();\n");
+            writer.write("    }\n\n");
+
+            writer.write("    @Override\n");
+            writer.write("    public void invoke(int handler, " + type + " instance, " + SENDER + " sender, " + INFORMATION + " information) throws Throwable {\n");
+            writer.write("        switch (handler) {\n");
+            for (int i = 0; i < handlers.size(); i++) {
+                ExecutableElement handler = handlers.get(i);
+                String target = handler.getModifiers().contains(Modifier.STATIC) ? type : "instance";
+                writer.write("            case " + i + ":\n");
+                writer.write("                " + target + "." + handler.getSimpleName() + "(sender, information);\n");
+                writer.write("                return;\n");
+            }
+            writer.write("            default:\n");
+            writer.write("                throw new IndexOutOfBoundsException(\"Handler: \" + handler);\n");
+            writer.write("        }\n");
+            writer.write("    }\n");
+            writer.write("}\n");
+        } finally {
+            writer.close();
+        }
+    }
+
+    private static String literal(String[] values) {
+        StringBuilder builder = new StringBuilder("new java.lang.String[]{");
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(literal(values[i]));
+        }
+        return builder.append('}').toString();
+    }
+
+    private static String literal(String value) {
+        StringBuilder builder = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    builder.append("\\\"");
+                    break;
+                case '\\':
+                    builder.append("\\\\");
+                    break;
+                case '\n':
+                    builder.append("\\n");
+                    break;
+                case '\r':
+                    builder.append("\\r");
+                    break;
+                case '\t':
+                    builder.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20 || c > 0x7e) {
+                        builder.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        builder.append(c);
+                    }
+            }
+        }
+        return builder.append('"').toString();
+    }
+}
@@ -1,6 +1,7 @@
 import com.carrotsearch.junitbenchmarks.BenchmarkRule;
 import com.p000ison.dev.commandlib.*;
 import com.p000ison.dev.commandlib.commands.HelpCommand;
+import com.p000ison.dev.commandlib.commands.HelpEntryValidation;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Rule;
@@ -12,8 +13,20 @@ import org.junit.runners.JUnit4;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
-
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IllegalFormatConversionException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Represents a CommandTest
@@ -29,12 +42,14 @@ public class CommandTest {
     private CommandExecutor executor;
     private ConsoleCommandSender consoleSender;
     private ByteArrayOutputStream outContent;
+    private int budgetExceeded;
 
     @Before
     public void createCommands() {
         outContent = new ByteArrayOutputStream();
         System.setOut(new PrintStream(outContent));
         consoleSender = new ConsoleCommandSender();
+        budgetExceeded = 0;
 
         executor = new CommandExecutor() {
             @Override
@@ -58,6 +73,11 @@ public class CommandTest {
             @Override
             public void onPermissionFailed(CommandSender sender, Command command) {
             }
+
+            @Override
+            public void onTickBudgetExceeded(CallInformation info, long nanos) {
+                budgetExceeded++;
+            }
         };
 
         Command subCommand = executor.build(this, "SubTest");
@@ -132,6 +152,102 @@ public class CommandTest {
         }
     }
 
+    @Test
+    public void testHelpLines() {
+        executor.register(new HelpCommand(executor, "Commands", "Lists the commands", "page", "/%s%s- %s", "commands"));
+        executor.executeAll(consoleSender, "commands");
+        assertTrue(outContent.toString().contains("/test <test> - None"));
+        outContent.reset();
+
+        executor.register(new Command().setName("Late").setUsage("Registered later").setIdentifiers("late"));
+        executor.executeAll(consoleSender, "commands");
+        assertTrue(outContent.toString().contains("/late - Registered later"));
+    }
+
+    @Test
+    public void testHelpPages() {
+        executor.register(new HiddenCommand().setName("Hidden").setUsage("Hidden").setIdentifiers("hidden"));
+        executor.register(new Command().setName("A").setUsage("A").setIdentifiers("a"));
+        executor.register(new Command().setName("B").setUsage("B").setIdentifiers("b"));
+        executor.register(new HelpCommand(executor, "Commands", "Lists the commands", "page", "/%s%s- %s", "commands"));
+        executor.setDefaultElementsPerPage(2);
+
+        executor.executeAll(consoleSender, "commands 2");
+        assertEquals("/a - A\n/b - B", outContent.toString().trim());
+    }
+
+    @Test
+    public void testHelpVisibleCached() {
+        final int[] checks = new int[1];
+        executor.register(new CountingHelpCommand(checks).setName("Counted").setUsage("Counted").setIdentifiers("counted"));
+        executor.register(new HelpCommand(executor, "Commands", "Lists the commands", "page", "/%s%s- %s", "commands"));
+
+        executor.executeAll(consoleSender, "commands");
+        executor.executeAll(consoleSender, "commands 2");
+        assertEquals(1, checks[0]);
+
+        executor.invalidatePermissions();
+        executor.executeAll(consoleSender, "commands");
+        assertEquals(2, checks[0]);
+    }
+
+    private static class CountingHelpCommand extends Command implements HelpEntryValidation {
+        private final int[] checks;
+
+        CountingHelpCommand(int[] checks) {
+            this.checks = checks;
+        }
+
+        @Override
+        public boolean displayHelpEntry(CommandSender sender) {
+            checks[0]++;
+            return true;
+        }
+    }
+
+    private static class HiddenCommand extends Command implements HelpEntryValidation {
+        @Override
+        public boolean displayHelpEntry(CommandSender sender) {
+            return false;
+        }
+    }
+
+    @Test
+    public void testBatchMatchesExecuteAll() {
+        String[] lines = new String[50000];
+        for (int i = 0; i < lines.length; i++) {
+            lines[i] = i % 3 == 0 ? "test sub subsub" : i % 3 == 1 ? "test sub" : "unknown";
+        }
+        CallResult[] results = executor.executeBatch(consoleSender, lines);
+        String batchOutput = outContent.toString();
+        outContent.reset();
+
+        for (int i = 0; i < lines.length; i++) {
+            assertEquals(executor.executeAll(consoleSender, lines[i]), results[i]);
+        }
+        assertEquals(outContent.toString(), batchOutput);
+    }
+
+    @Test
+    public void testBatchSeesRegistrations() {
+        executor.register(new Command() {
+            @Override
+            public void execute(CommandSender sender, CallInformation information) {
+                executor.register(new Command().setName("Late").setUsage("Registered later").setIdentifiers("late"));
+            }
+        }.setName("Register").setUsage("Registers a command").setIdentifiers("register"));
+
+        CallResult[] results = executor.executeBatch(consoleSender, "late", "register", "late");
+        assertArrayEquals(new CallResult[]{CallResult.NOT_FOUND, CallResult.SUCCESS, CallResult.SUCCESS}, results);
+    }
+
+    @Test
+    public void testBatch() throws IOException {
+        CallResult[] results = executor.executeScript(consoleSender, new StringReader("# comment\ntest sub\n\nunknown\ntest\n"));
+        assertArrayEquals(new CallResult[]{CallResult.SUCCESS, CallResult.NOT_FOUND, CallResult.DISPLAYED_COMMAND_HELP}, results);
+        assertEquals(TEST_TEXT_SUB + '\n' + TEST_TEXT + '\n' + COMMAND_NOT_FOUND + '\n' + HELP_TEXT, outContent.toString().trim());
+    }
+
     @Test
     public void testHelpCommand() {
         executor.executeAll(consoleSender, "help 1");
@@ -151,6 +267,544 @@ public class CommandTest {
         assertEquals(TEST_TEXT_SUB_SUB + '\n' + TEST_TEXT_SUB + '\n' + TEST_TEXT, outContent.toString().trim());
     }
 
+    @Test
+    public void testRepeatedWhitespace() {
+        executor.executeAll(consoleSender, "  test   sub\tsubsub ");
+        assertEquals(TEST_TEXT_SUB_SUB + '\n' + TEST_TEXT_SUB + '\n' + TEST_TEXT, outContent.toString().trim());
+    }
+
+    @Test
+    public void testCommandLine() {
+        CommandLine line = CommandLine.parse(" test  sub ");
+        assertEquals(2, line.size());
+        assertEquals("sub", line.getToken(1));
+        assertEquals(7, line.getOffset(1));
+    }
+
+    @Test
+    public void testModifiedAfterDispatch() {
+        executor.executeAll(consoleSender, "test other");
+        assertEquals(TEST_TEXT, outContent.toString().trim());
+        outContent.reset();
+
+        Command other = executor.build("Other").setUsage("None").setIdentifiers("other");
+        other.addAlias(executor.build(this, "SubSubTest"));
+        executor.getCommands().get(0).addSubCommand(other);
+
+        executor.executeAll(consoleSender, "test other");
+        assertEquals(TEST_TEXT_SUB_SUB + '\n' + TEST_TEXT, outContent.toString().trim());
+    }
+
+    @Test
+    public void testAsyncOrder() throws Exception {
+        final List<String> executed = Collections.synchronizedList(new ArrayList<String>());
+        final Thread caller = Thread.currentThread();
+
+        executor.register(new Command() {
+            @Override
+            public void execute(CommandSender sender, CallInformation information) {
+                assertNotSame(caller, Thread.currentThread());
+                try {
+                    Thread.sleep(information.getInteger(0));
+                } catch (InterruptedException e) {
+                    throw new CommandException(this, e);
+                }
+                executed.add(information.getArgument(0));
+            }
+        }.setName("Async").setUsage("None").setIdentifiers("async").addArgument("delay").setAsync(true));
+
+        executor.executeAll(consoleSender, "async 20");
+        executor.executeAll(consoleSender, "async 5");
+        assertEquals(CallResult.SUCCESS, executor.submit(consoleSender, "async 0").get(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("20", "5", "0"), executed);
+    }
+
+    @Test
+    public void testSuggestions() {
+        List<Command> suggestions = executor.getSuggestions(consoleSender, "tset");
+        assertEquals(1, suggestions.size());
+        assertEquals("Test", suggestions.get(0).getName());
+
+        assertEquals("Test", executor.getSuggestions(consoleSender, "TES").get(0).getName());
+        assertTrue(executor.getSuggestions(consoleSender, "unknown").isEmpty());
+    }
+
+    @Test
+    public void testComplete() {
+        executor.register(new Command().setName("Teleport").setUsage("None").setIdentifiers("teleport", "tp")
+                .addArgument(new Argument("target", false, new CompletionProvider() {
+                    @Override
+                    public List<String> complete(CommandSender sender, String prefix) {
+                        return "notch".startsWith(prefix) ? Arrays.asList("notch") : Collections.<String>emptyList();
+                    }
+                })));
+
+        assertEquals(Arrays.asList("teleport", "test", "tp"), executor.complete(consoleSender, "t"));
+        assertEquals(Arrays.asList("teleport", "test"), executor.complete(consoleSender, "te"));
+        assertEquals(Arrays.asList("sub"), executor.complete(consoleSender, "test s"));
+        assertEquals(Arrays.asList("subsub"), executor.complete(consoleSender, "test sub "));
+        assertEquals(Arrays.asList("notch"), executor.complete(consoleSender, "tp "));
+        assertTrue(executor.complete(consoleSender, "tp x").isEmpty());
+    }
+
+    @Test
+    public void testPermissionCache() {
+        final int[] checks = new int[1];
+        CommandSender sender = new ConsoleCommandSender() {
+            @Override
+            public boolean hasPermission(String permission) {
+                checks[0]++;
+                return true;
+            }
+        };
+
+        executor.register(new Command().setName("Secure").setUsage("None").setIdentifiers("secure").addPermission("secure.use"));
+        executor.setPermissionCaching(true);
+
+        executor.executeAll(sender, "secure");
+        executor.executeAll(sender, "secure");
+        assertEquals(1, checks[0]);
+
+        executor.invalidatePermissions(sender);
+        executor.executeAll(sender, "secure");
+        assertEquals(2, checks[0]);
+
+        executor.invalidatePermissions();
+        executor.executeAll(sender, "secure");
+        executor.executeAll(sender, "secure");
+        assertEquals(3, checks[0]);
+    }
+
+    @Test
+    public void testTypedArguments() {
+        executor.register(new Command() {
+            @Override
+            public void execute(CommandSender sender, CallInformation information) {
+                information.reply(information.getInt(0) + " " + information.getDouble(1));
+            }
+        }.setName("Give").setUsage("None").setIdentifiers("give")
+                .addArgument(new Argument("amount", false, false, true, false))
+                .addArgument(new Argument("chance", true, true, false, false)));
+
+        assertEquals(CallResult.SUCCESS, executor.executeAll(consoleSender, "give -12 .5"));
+        assertEquals("-12 0.5", outContent.toString().trim());
+        outContent.reset();
+
+        assertEquals(CallResult.INVALID_ARGUMENT, executor.executeAll(consoleSender, "give 12 x"));
+        assertEquals(CallResult.INVALID_ARGUMENT, executor.executeAll(consoleSender, "give 99999999999999999999"));
+        assertEquals(CallResult.INVALID_ARGUMENT, executor.executeAll(consoleSender, "give 3000000000"));
+        assertEquals(CallResult.INVALID_ARGUMENT, executor.executeAll(consoleSender, "give +12"));
+        assertEquals(HELP_TEXT + '\n' + HELP_TEXT + '\n' + HELP_TEXT + '\n' + HELP_TEXT, outContent.toString().trim());
+    }
+
+    @Test
+    public void testRecycleCallInformation() {
+        final List<CallInformation> infos = new ArrayList<CallInformation>();
+
+        executor.register(new Command() {
+            @Override
+            public void execute(CommandSender sender, CallInformation information) {
+                infos.add(information);
+                if (information.getArgumentsLength() > 0) {
+                    executor.executeAll(sender, "record");
+                }
+            }
+        }.setName("Record").setUsage("None").setIdentifiers("record").addArgument(new Argument("nested", true, false, true, false)));
+        executor.setRecycleCallInformation(true);
+
+        executor.executeAll(consoleSender, "record");
+        executor.executeAll(consoleSender, "record");
+        assertSame(infos.get(0), infos.get(1));
+        assertNull(infos.get(0).getCommand());
+
+        executor.executeAll(consoleSender, "record 1");
+        assertSame(infos.get(0), infos.get(2));
+        assertNotSame(infos.get(2), infos.get(3));
+    }
+
+    @Test
+    public void testMetrics() {
+        executor.setMetricsEnabled(true);
+        executor.executeAll(consoleSender, "test sub");
+        executor.executeAll(consoleSender, "test");
+        executor.executeAll(consoleSender, "unknown");
+
+        DispatchMetrics metrics = executor.getMetrics();
+        assertEquals(3, metrics.getDispatches());
+        assertEquals(1, metrics.getOutcomes(CallResult.SUCCESS));
+        assertEquals(1, metrics.getOutcomes(CallResult.DISPLAYED_COMMAND_HELP));
+        assertEquals(1, metrics.getOutcomes(CallResult.NOT_FOUND));
+
+        Command test = executor.getCommands().get(0);
+        assertEquals(1, metrics.getCommandMetrics(test).getInvocations());
+        assertEquals(1, metrics.getCommandMetrics(test.getSubCommands().get(0)).getLatency().getCount());
+
+        metrics.reset();
+        executor.setMetricsEnabled(false);
+        executor.executeAll(consoleSender, "test sub");
+        assertEquals(0, metrics.getDispatches());
+        assertNull(metrics.getCommandMetrics(test));
+
+        // the metrics of a unregistered command are dropped with the next graph
+        executor.setMetricsEnabled(true);
+        executor.executeAll(consoleSender, "test sub");
+        assertEquals(1, metrics.getCommandMetrics(test).getInvocations());
+        executor.unregister(test);
+        executor.compile();
+        assertNull(metrics.getCommandMetrics(test));
+    }
+
+    @Test
+    public void testLatencyHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long nanos = 1000; nanos < 2000; nanos++) {
+            histogram.record(nanos);
+        }
+
+        long median = histogram.getPercentile(0.5);
+        assertTrue("Median " + median, median >= 1499 && median <= 1499 * 9 / 8);
+
+        histogram.reset();
+        histogram.record(7);
+        assertEquals(7, histogram.getPercentile(1));
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(Long.MAX_VALUE, histogram.getPercentile(1));
+    }
+
+    @Test
+    public void testTick() {
+        executor.register(new Command() {
+            @Override
+            public void execute(CommandSender sender, CallInformation information) {
+                information.schedule(new CommandTask() {
+                    private int next;
+
+                    @Override
+                    public boolean step(CallInformation information) {
+                        information.reply(String.valueOf(next++));
+                        return next == 3;
+                    }
+                });
+            }
+        }.setName("Count").setUsage("None").setIdentifiers("count"));
+        executor.setRecycleCallInformation(true);
+        executor.setTickBudget(0, TimeUnit.NANOSECONDS);
+
+        executor.executeAll(consoleSender, "count");
+        executor.executeAll(consoleSender, "test sub");
+        assertEquals(TEST_TEXT_SUB + '\n' + TEST_TEXT, outContent.toString().trim());
+        outContent.reset();
+
+        assertEquals(1, executor.tick());
+        assertEquals(1, executor.tick());
+        assertEquals(0, executor.tick());
+        assertEquals("0\n1\n2", outContent.toString().trim());
+        assertEquals(3, budgetExceeded);
+    }
+
+    @Test
+    public void testTickCountsQueuedTasks() {
+        executor.register(new Command() {
+            @Override
+            public void execute(CommandSender sender, CallInformation information) {
+                information.schedule(new CommandTask() {
+                    @Override
+                    public boolean step(CallInformation information) {
+                        // scheduled during the tick, so it runs on the next one
+                        information.schedule(new CommandTask() {
+                            @Override
+                            public boolean step(CallInformation information) {
+                                information.reply("Queued");
+                                return true;
+                            }
+                        });
+                        return true;
+                    }
+                });
+            }
+        }.setName("Queue").setUsage("None").setIdentifiers("queue"));
+
+        executor.executeAll(consoleSender, "queue");
+        assertEquals(1, executor.tick());
+        assertEquals("", outContent.toString().trim());
+        assertEquals(0, executor.tick());
+        assertEquals("Queued", outContent.toString().trim());
+    }
+
+    @Test
+    public void testRegisterAll() {
+        List<Command> registered = executor.registerAll(new Handlers());
+        assertEquals(2, registered.size());
+
+        Command greet = registered.get(0);
+        assertEquals(Arrays.asList("greet.use"), greet.getPermissions());
+        assertSame(registered.get(1), greet.getCallMethods().get(0));
+
+        executor.executeAll(consoleSender, "greet");
+        assertEquals("Hello\nWorld", outContent.toString().trim());
+    }
+
+    public static class Handlers {
+        @CommandHandler(name = "Greet", usage = "None", identifiers = "greet", aliases = "World", permissions = "greet.use")
+        public void greet(CommandSender sender, CallInformation info) {
+            info.reply("Hello");
+        }
+
+        @CommandHandler(name = "World", usage = "None", identifiers = "world")
+        public void world(CommandSender sender, CallInformation info) {
+            info.reply("World");
+        }
+    }
+
+    @Test
+    public void testReplyBuffering() {
+        final List<List<String>> writes = new ArrayList<List<String>>();
+        CommandSender sender = new ConsoleCommandSender() {
+            @Override
+            public void sendMessage(String message) {
+                writes.add(Arrays.asList(message));
+            }
+
+            @Override
+            public void sendMessages(List<String> messages) {
+                writes.add(new ArrayList<String>(messages));
+            }
+        };
+
+        executor.register(new Command().setName("A").setUsage("A").setIdentifiers("a"));
+        executor.register(new HelpCommand(executor, "Commands", "Lists the commands", "page", "/%s%s- %s", "commands"));
+        executor.setReplyBuffering(true);
+
+        executor.executeAll(sender, "commands");
+        assertEquals(1, writes.size());
+        assertEquals(4, writes.get(0).size());
+
+        writes.clear();
+        executor.executeAll(sender, "test sub");
+        assertEquals(Arrays.asList(Arrays.asList(TEST_TEXT_SUB), Arrays.asList(TEST_TEXT)), writes);
+    }
+
+    @Test
+    public void testMessageTemplate() {
+        String[] patterns = {"/%s%s- %s", "%d%% of %s%n", "no arguments", "%5d padded %s"};
+        for (String pattern : patterns) {
+            assertEquals(String.format(pattern, 42, "b", "c"), MessageTemplate.of(pattern).format(42, "b", "c"));
+        }
+
+        assertEquals(2, MessageTemplate.compile("%s and %d").getArguments());
+        assertEquals("null", MessageTemplate.compile("%s").format((Object) null));
+
+        // a %d which is not given a integer is rejected like String.format does
+        try {
+            MessageTemplate.compile("%d items").format("many");
+            assertTrue(false);
+        } catch (IllegalFormatConversionException expected) {
+        }
+        assertEquals(String.format("%d %s", 5L, 1.5), MessageTemplate.compile("%d %s").format(5L, 1.5));
+    }
+
+    @Test
+    public void testRateLimit() {
+        final long[] retryAfter = new long[1];
+        CommandExecutor limited = new CommandExecutor() {
+            @Override
+            public void onPreCommand(CallInformation info) {
+            }
+
+            @Override
+            public void onPostCommand(CallInformation info) {
+            }
+
+            @Override
+            public void onDisplayCommandHelp(CommandSender sender, Command command) {
+            }
+
+            @Override
+            public void onCommandNotFound(CommandSender sender) {
+            }
+
+            @Override
+            public void onPermissionFailed(CommandSender sender, Command command) {
+            }
+
+            @Override
+            public void onRateLimited(CommandSender sender, Command command, long wait) {
+                retryAfter[0] = wait;
+            }
+        };
+        limited.register(new Command().setName("Heal").setUsage("None").setIdentifiers("heal")
+                .setRateLimit(RateLimit.of(2, 1, TimeUnit.HOURS)));
+
+        assertEquals(CallResult.SUCCESS, limited.executeAll(consoleSender, "heal"));
+        assertEquals(CallResult.SUCCESS, limited.executeAll(consoleSender, "heal"));
+        assertEquals(CallResult.RATE_LIMITED, limited.executeAll(consoleSender, "heal"));
+        assertTrue(retryAfter[0] > TimeUnit.MINUTES.toMillis(29));
+
+        assertEquals(CallResult.SUCCESS, limited.executeAll(new ConsoleCommandSender(), "heal"));
+
+        // a invalid call does not start the cooldown
+        limited.register(new Command().setName("Give").setUsage("None").setIdentifiers("give")
+                .addArgument(new Argument("amount", false, false, true, false))
+                .setCooldown(1, TimeUnit.HOURS));
+        assertEquals(CallResult.INVALID_ARGUMENT, limited.executeAll(consoleSender, "give x"));
+        assertEquals(CallResult.SUCCESS, limited.executeAll(consoleSender, "give 1"));
+        assertEquals(CallResult.RATE_LIMITED, limited.executeAll(consoleSender, "give 1"));
+    }
+
+    @Test
+    public void testCachedReplies() {
+        final int[] executions = new int[1];
+        Command top = executor.register(new Command() {
+            @Override
+            public void execute(CommandSender sender, CallInformation information) {
+                executions[0]++;
+                information.reply("Top " + information.getLong(0));
+            }
+        }.setName("Top").setUsage("None").setIdentifiers("top")
+                .addArgument(new Argument("page", false, false, true, false))
+                .setCacheable(1, TimeUnit.HOURS));
+
+        executor.executeAll(consoleSender, "top 1");
+        executor.executeAll(consoleSender, "top 01");
+        assertEquals(1, executions[0]);
+        assertEquals("Top 1\nTop 1", outContent.toString().trim());
+
+        executor.executeAll(consoleSender, "top 2");
+        assertEquals(2, executions[0]);
+
+        executor.invalidateReplies(top);
+        executor.executeAll(consoleSender, "top 1");
+        assertEquals(3, executions[0]);
+
+        // modifying a other command keeps the replies, modifying the command itself drops them
+        executor.build("Other").addPermission("other");
+        executor.executeAll(consoleSender, "top 1");
+        assertEquals(3, executions[0]);
+        top.addPermission("top");
+        executor.executeAll(consoleSender, "top 1");
+        assertEquals(4, executions[0]);
+
+        // a cache of one entry keeps only the last call
+        executor.setReplyCacheSize(1);
+        executor.executeAll(consoleSender, "top 1");
+        executor.executeAll(consoleSender, "top 2");
+        executor.executeAll(consoleSender, "top 1");
+        assertEquals(7, executions[0]);
+        executor.executeAll(consoleSender, "top 1");
+        assertEquals(7, executions[0]);
+
+        // a call which replies nothing is not cached
+        final int[] silentExecutions = new int[1];
+        executor.register(new Command() {
+            @Override
+            public void execute(CommandSender sender, CallInformation information) {
+                silentExecutions[0]++;
+            }
+        }.setName("Silent").setUsage("None").setIdentifiers("silent").setCacheable(1, TimeUnit.HOURS));
+        executor.executeAll(consoleSender, "silent");
+        executor.executeAll(consoleSender, "silent");
+        assertEquals(2, silentExecutions[0]);
+    }
+
+    @Test
+    public void testParsePlan() {
+        final List<String> calls = new ArrayList<String>();
+        executor.register(new Command() {
+            @Override
+            public void execute(CommandSender sender, CallInformation information) {
+                calls.add(Arrays.toString(information.getArguments()) + " " + information.hasFlag("s")
+                        + " " + information.getFlag("reason"));
+            }
+        }.setName("Kick").setUsage("None").setIdentifiers("kick")
+                .addArgument(Argument.quoted("player", false))
+                .addArgument(Argument.greedy("message", true))
+                .addFlag(Flag.of('s', "silent"))
+                .addFlag(Flag.valued('r', "reason")));
+
+        executor.executeAll(consoleSender, "kick \"Max \\\"A\\\"\"  hello   world ");
+        executor.executeAll(consoleSender, "kick -s --reason=spam Max");
+        executor.executeAll(consoleSender, "kick -r \"too much spam\" --silent -5");
+        executor.executeAll(consoleSender, "kick", new String[]{"-s", "Max"});
+        assertEquals(Arrays.asList(
+                "[Max \"A\", hello   world] false null",
+                "[Max] true spam",
+                "[-5] true too much spam",
+                "[Max] true null"), calls);
+
+        executor.executeAll(consoleSender, "kick \"Max");
+        executor.executeAll(consoleSender, "kick -r");
+        executor.executeAll(consoleSender, "kick -s");
+        assertEquals(4, calls.size());
+        assertEquals(HELP_TEXT + '\n' + HELP_TEXT + '\n' + HELP_TEXT, outContent.toString().trim());
+    }
+
+    @Test
+    public void testReload() throws Exception {
+        Command old = executor.register(new Command().setName("Old").setUsage("None").setIdentifiers("module"));
+        Command reloaded = new Command() {
+            @Override
+            public void execute(CommandSender sender, CallInformation information) {
+                information.reply("Reloaded");
+            }
+        }.setName("Reloaded").setUsage("None").setIdentifiers("module");
+
+        assertTrue(executor.replace(old, reloaded));
+        assertTrue(executor.isRegistered(reloaded));
+        executor.executeAll(consoleSender, "module");
+        assertEquals("Reloaded", outContent.toString().trim());
+        outContent.reset();
+
+        assertTrue(executor.unregister(reloaded));
+        assertEquals(CallResult.NOT_FOUND, executor.executeAll(consoleSender, "module"));
+        assertTrue(!executor.unregister(reloaded));
+
+        // a dispatch during the reloads always finds either the old or the new commands
+        final List<Command> first = Arrays.asList(old, new Command().setName("Sub").setUsage("None").setIdentifiers("sub"));
+        final List<Command> second = Arrays.asList(reloaded, new Command().setName("Sub2").setUsage("None").setIdentifiers("sub"));
+        executor.replace(Collections.<Command>emptyList(), first);
+
+        final CallResult[] failed = new CallResult[1];
+        Thread dispatcher = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < 2000; i++) {
+                    CallResult result = executor.executeAll(consoleSender, "module");
+                    CallResult sub = executor.executeAll(consoleSender, "sub");
+                    if (result != CallResult.SUCCESS || sub != CallResult.SUCCESS) {
+                        failed[0] = result != CallResult.SUCCESS ? result : sub;
+                    }
+                }
+            }
+        });
+        dispatcher.start();
+        for (int i = 0; i < 200; i++) {
+            executor.replace(i % 2 == 0 ? first : second, i % 2 == 0 ? second : first);
+        }
+        dispatcher.join();
+
+        assertNull(failed[0]);
+
+        // the remaining commands keep their order
+        assertTrue(executor.replace(Collections.singletonList(executor.getCommands().get(1)), Collections.<Command>emptyList()));
+        assertTrue(!executor.replace(second, Collections.<Command>emptyList()));
+        List<String> names = new ArrayList<String>();
+        for (Command command : executor.getCommands()) {
+            names.add(command.getName());
+        }
+        assertEquals(Arrays.asList("Test", "Old", "Sub"), names);
+    }
+
+    @Test
+    public void testIgnoreCase() {
+        executor.executeAll(consoleSender, "TEST hey");
+        assertEquals(COMMAND_NOT_FOUND, outContent.toString().trim());
+        outContent.reset();
+
+        executor.setIgnoreCase(true);
+        executor.executeAll(consoleSender, "TEST Sub");
+        assertEquals(TEST_TEXT_SUB + '\n' + TEST_TEXT, outContent.toString().trim());
+    }
+
     @After
     public void clean() {
         outContent.reset();
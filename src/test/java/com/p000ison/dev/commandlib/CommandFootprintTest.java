@@ -0,0 +1,41 @@
+package com.p000ison.dev.commandlib;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that the data which is shared by many commands, like the permissions of one generated command per warp, is
+ * stored only once.
+ * The retained heap itself is measured by the FootprintBenchmark of the benchmarks module.
+ */
+@RunWith(JUnit4.class)
+public class CommandFootprintTest {
+
+    private static Command createWarp(int i) {
+        return new Command().setName("Warp" + i).setUsage(new StringBuilder("Teleports to a warp").toString())
+                .setIdentifiers("warp" + i)
+                .addPermission(new StringBuilder("warps.use").toString())
+                .addArgument(new Argument("player", true));
+    }
+
+    @Test
+    public void testSharedStrings() {
+        Command first = createWarp(1), second = createWarp(2);
+
+        assertSame(first.getPermissions().get(0), second.getPermissions().get(0));
+        assertSame(new Command().getArgumentArray(), new Command().getArgumentArray());
+    }
+
+    @Test
+    public void testArgumentOptions() {
+        Argument argument = new Argument("amount", true, false, true, false);
+        assertTrue(!argument.isRequired() && argument.isInteger() && !argument.isDecimal() && !argument.isPage());
+
+        Argument greedy = Argument.greedy("message", false);
+        assertTrue(greedy.isRequired() && greedy.isGreedy() && !greedy.isQuoted());
+    }
+}
@@ -0,0 +1,90 @@
+package com.p000ison.dev.commandlib;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Checks that a executor only recompiles its graph if one of its own commands has been modified
+ */
+@RunWith(JUnit4.class)
+public class CommandGraphTest {
+
+    @Rule
+    public TestRule benchmarkRun = new BenchmarkRule();
+
+    private static CommandExecutor createExecutor() {
+        return new CommandExecutor() {
+            @Override
+            public void onPreCommand(CallInformation info) {
+            }
+
+            @Override
+            public void onPostCommand(CallInformation info) {
+            }
+
+            @Override
+            public void onDisplayCommandHelp(CommandSender sender, Command command) {
+            }
+
+            @Override
+            public void onCommandNotFound(CommandSender sender) {
+            }
+
+            @Override
+            public void onPermissionFailed(CommandSender sender, Command command) {
+            }
+        };
+    }
+
+    private static Command createCommand(String name) {
+        return new Command().setName(name).setUsage(name).setIdentifiers(name.toLowerCase());
+    }
+
+    @Test
+    public void testModificationsPerExecutor() {
+        CommandExecutor first = createExecutor(), second = createExecutor();
+        Command command = first.register(createCommand("First"));
+        Command sub = createCommand("Sub");
+        command.addSubCommand(sub);
+        second.register(createCommand("Second"));
+
+        CommandGraph firstGraph = first.getGraph(), secondGraph = second.getGraph();
+
+        // a command which is not registered anywhere does not affect any executor
+        createCommand("Unregistered").addPermission("unregistered");
+        assertSame(firstGraph, first.getGraph());
+
+        // neither does a command of another executor
+        sub.addPermission("first.sub");
+        assertSame(secondGraph, second.getGraph());
+        assertNotSame(firstGraph, first.getGraph());
+
+        Command deep = createCommand("Deep");
+        sub.addSubCommand(deep);
+        firstGraph = first.getGraph();
+        deep.addPermission("first.deep");
+        assertNotSame(firstGraph, first.getGraph());
+        assertSame(secondGraph, second.getGraph());
+    }
+
+    @Test
+    public void testSharedCommand() {
+        CommandExecutor first = createExecutor(), second = createExecutor();
+        Command shared = createCommand("Shared");
+        first.register(shared);
+        second.register(shared);
+
+        CommandGraph firstGraph = first.getGraph(), secondGraph = second.getGraph();
+        shared.addPermission("shared");
+
+        assertNotSame(firstGraph, first.getGraph());
+        assertNotSame(secondGraph, second.getGraph());
+    }
+}
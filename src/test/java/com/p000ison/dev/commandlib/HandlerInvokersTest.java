@@ -0,0 +1,143 @@
+package com.p000ison.dev.commandlib;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.lang.reflect.Method;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * Compares the generated handler invokers with the reflective invocation
+ */
+@RunWith(JUnit4.class)
+public class HandlerInvokersTest {
+    private static final int INVOCATIONS = 1000000;
+
+    @Rule
+    public TestRule benchmarkRun = new BenchmarkRule();
+
+    private Method method;
+    private CallInformation information;
+    private int calls;
+
+    @Before
+    public void setup() throws NoSuchMethodException {
+        method = HandlerInvokersTest.class.getMethod("handle", CommandSender.class, CallInformation.class);
+        information = new CallInformation(null, null, null, "test", new String[0]);
+        calls = 0;
+    }
+
+    @CommandHandler(name = "Handle", usage = "None", identifiers = "handle")
+    public void handle(CommandSender sender, CallInformation info) {
+        calls++;
+    }
+
+    @Test
+    public void testHandlerOrder() {
+        // the generated binding and the reflection find the same handler for a duplicate name
+        assertNotNull(HandlerBindings.get(GeneratedHandlers.class));
+        assertNull(HandlerBindings.get(ReflectiveHandlers.class));
+
+        HandlerClass generated = HandlerClass.of(GeneratedHandlers.class);
+        HandlerClass reflective = HandlerClass.of(ReflectiveHandlers.class);
+        assertEquals("first", generated.getDefinition(generated.indexOf("Duplicate")).getMethodName());
+        assertEquals("first", reflective.getDefinition(reflective.indexOf("Duplicate")).getMethodName());
+    }
+
+    public static class GeneratedHandlers {
+        @CommandHandler(name = "Duplicate", usage = "None", identifiers = "second")
+        public void second(CommandSender sender, CallInformation info) {
+        }
+
+        @CommandHandler(name = "Duplicate", usage = "None", identifiers = "first")
+        public void first(CommandSender sender, CallInformation info) {
+        }
+    }
+
+    private static class ReflectiveHandlers {
+        @CommandHandler(name = "Duplicate", usage = "None", identifiers = "second")
+        public void second(CommandSender sender, CallInformation info) {
+        }
+
+        @CommandHandler(name = "Duplicate", usage = "None", identifiers = "first")
+        public void first(CommandSender sender, CallInformation info) {
+        }
+    }
+
+    @Test
+    public void testReflective() throws Throwable {
+        run(HandlerInvokers.createReflective(method, this));
+    }
+
+    @Test
+    public void testMethodHandle() throws Throwable {
+        run(HandlerInvokers.createMethodHandle(method, this, false));
+    }
+
+    @Test
+    public void testGenerated() throws Throwable {
+        run(HandlerInvokers.createGenerated(method, this, false));
+    }
+
+    @Test
+    public void testBound() throws Throwable {
+        CommandHandlerBinding<Object> binding = HandlerBindings.get(HandlerInvokersTest.class);
+        assertEquals("handle", binding.getDefinitions()[0].getMethodName());
+        run(HandlerInvokers.createBound(binding, 0, this));
+    }
+
+    @Test
+    public void testExceptionCause() {
+        final IllegalStateException cause = new IllegalStateException();
+        Command command = new CommandExecutor() {
+            @Override
+            public void onPreCommand(CallInformation info) {
+            }
+
+            @Override
+            public void onPostCommand(CallInformation info) {
+            }
+
+            @Override
+            public void onDisplayCommandHelp(CommandSender sender, Command command) {
+            }
+
+            @Override
+            public void onCommandNotFound(CommandSender sender) {
+            }
+
+            @Override
+            public void onPermissionFailed(CommandSender sender, Command command) {
+            }
+        }.build(new Object() {
+            @CommandHandler(name = "Fail", usage = "None", identifiers = "fail")
+            public void fail(CommandSender sender, CallInformation info) {
+                throw cause;
+            }
+        }, "Fail");
+
+        try {
+            command.execute(null, information);
+            fail();
+        } catch (CommandException e) {
+            assertSame(cause, e.getCause());
+        }
+    }
+
+    private void run(HandlerInvoker invoker) throws Throwable {
+        for (int i = 0; i < INVOCATIONS; i++) {
+            invoker.invoke(null, information);
+        }
+        assertEquals(INVOCATIONS, calls);
+    }
+}
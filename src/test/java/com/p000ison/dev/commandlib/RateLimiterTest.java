@@ -0,0 +1,43 @@
+package com.p000ison.dev.commandlib;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that the RateLimiter never forgets a active sender
+ */
+@RunWith(JUnit4.class)
+public class RateLimiterTest {
+    private static final int SENDERS = 4096;
+
+    @Rule
+    public TestRule benchmarkRun = new BenchmarkRule();
+
+    @Test
+    public void testActiveSendersAreKept() {
+        RateLimiter limiter = new RateLimiter(RateLimit.cooldown(1, TimeUnit.HOURS));
+        CommandSender[] senders = new CommandSender[SENDERS];
+        for (int i = 0; i < SENDERS; i++) {
+            senders[i] = new ConsoleCommandSender();
+            assertTrue(limiter.tryAcquire(senders[i]));
+        }
+
+        // all senders are in their cooldown, so a new sender is rejected instead of resetting one of them
+        CommandSender late = new ConsoleCommandSender();
+        assertFalse(limiter.tryAcquire(late));
+        assertTrue(limiter.getWait(late) > TimeUnit.MINUTES.toNanos(59));
+
+        for (CommandSender sender : senders) {
+            assertFalse(limiter.tryAcquire(sender));
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.p000ison.dev.commandlib.internal;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that the LruCache keeps the recently used entries once it is full, instead of dropping all of them
+ */
+@RunWith(JUnit4.class)
+public class LruCacheTest {
+    private static final int MAX_ENTRIES = 512;
+
+    @Rule
+    public TestRule benchmarkRun = new BenchmarkRule();
+
+    @Test
+    public void testRecentlyUsedEntriesAreKept() {
+        LruCache<Integer, Integer> cache = new LruCache<Integer, Integer>(MAX_ENTRIES);
+        cache.put(-1, -1);
+
+        for (int i = 0; i < MAX_ENTRIES * 4; i++) {
+            assertEquals(Integer.valueOf(-1), cache.get(-1));
+            cache.put(i, i);
+        }
+
+        assertTrue(cache.size() <= MAX_ENTRIES);
+        assertTrue(cache.size() > MAX_ENTRIES / 2);
+        assertEquals(Integer.valueOf(MAX_ENTRIES * 4 - 1), cache.get(MAX_ENTRIES * 4 - 1));
+    }
+
+    @Test
+    public void testBound() {
+        for (int maxEntries = 1; maxEntries < 100; maxEntries++) {
+            LruCache<Integer, Integer> cache = new LruCache<Integer, Integer>(maxEntries);
+            for (int i = 0; i < maxEntries * 64; i++) {
+                cache.put(i, i);
+            }
+            assertTrue(cache.size() <= maxEntries);
+        }
+    }
+}